@@ -0,0 +1,619 @@
+import java.util.Collection;
+
+// Everything the graphs compute from their compressed-sparse-row view. A
+// subclass owns the storage and the mapping between vertex values and
+// indices; it supplies the CSR form through buildCsr and calls invalidate on
+// every mutation, which drops the cached views and the derived data.
+public abstract class AbstractDirectedWeightedGraph<T> {
+    final boolean bothWays;
+    CsrGraph csr; // Cached CSR snapshot, dropped on every mutation
+    CsrGraph reverseCsr; // Cached transpose of csr, for in-edge scans
+    private Landmarks landmarks; // ALT distances, dropped on every mutation
+    int modCount; // Bumped on every mutation, checked by the path cache
+    private ShortestPathCache<T> pathCache;
+    private AdjacencyIndex adjacency; // Edge lookup by endpoints, dropped on every mutation
+
+    public enum MstAlgorithm {
+        PRIM, KRUSKAL, BORUVKA
+    }
+
+    public enum BfsMode {
+        TOP_DOWN, DIRECTION_OPTIMIZING, PARALLEL
+    }
+
+    public enum RoutingAlgorithm {
+        DIJKSTRA, BIDIRECTIONAL, ALT
+    }
+
+    public enum AllPairsAlgorithm {
+        FLOYD_WARSHALL, JOHNSON
+    }
+
+    public enum TraversalOrder {
+        BREADTH_FIRST, DEPTH_FIRST_PREORDER, DEPTH_FIRST_POSTORDER
+    }
+
+    AbstractDirectedWeightedGraph(boolean bothWays) {
+        this.bothWays = bothWays;
+    }
+
+    public abstract int getVertexCount();
+
+    // Index of the vertex, -1 if it is not in the graph
+    public abstract int getIndex(T vertex);
+
+    // Vertex with the given index, null if the index is out of range
+    public abstract T getVertex(int index);
+
+    // Builds the CSR form of the current graph
+    abstract CsrGraph buildCsr();
+
+    public boolean isBothWays() {
+        return bothWays;
+    }
+
+    int requireIndex(T vertex) {
+        int index = getIndex(vertex);
+        if (index == -1) {
+            throw new IllegalArgumentException("Vertex not found: " + vertex);
+        }
+        return index;
+    }
+
+    // Drops every view derived from the adjacency lists
+    void invalidate() {
+        csr = null;
+        reverseCsr = null;
+        landmarks = null;
+        adjacency = null;
+        modCount++;
+    }
+
+    // Returns the compressed-sparse-row form of the graph, rebuilt only after a
+    // mutation. Every algorithm below reads the graph through this view.
+    public CsrGraph toCsr() {
+        if (csr == null) {
+            csr = buildCsr();
+        }
+        return csr;
+    }
+
+    // CSR view of the in-edges; a bothWays graph is its own transpose
+    CsrGraph toReverseCsr() {
+        if (bothWays) {
+            return toCsr();
+        }
+        if (reverseCsr == null) {
+            reverseCsr = toCsr().transpose();
+        }
+        return reverseCsr;
+    }
+
+    // Whether there is an edge source -> destination. The first lookup after
+    // a mutation builds an index in O(V + E); lookups are then O(1) for dense
+    // and low-degree vertices and O(log(degree)) otherwise.
+    public boolean hasEdge(T source, T destination) {
+        return adjacencyIndex().hasEdge(requireIndex(source), requireIndex(destination));
+    }
+
+    public boolean hasEdgeByIndex(int source, int destination) {
+        return adjacencyIndex().hasEdge(checkIndex(source), checkIndex(destination));
+    }
+
+    // Lightest weight of the edges source -> destination,
+    // ShortestPathResult.UNREACHABLE if there is none
+    public long getWeight(T source, T destination) {
+        return adjacencyIndex().weight(requireIndex(source), requireIndex(destination));
+    }
+
+    public long getWeightByIndex(int source, int destination) {
+        return adjacencyIndex().weight(checkIndex(source), checkIndex(destination));
+    }
+
+    private AdjacencyIndex adjacencyIndex() {
+        if (adjacency == null) {
+            adjacency = new AdjacencyIndex(toCsr());
+        }
+        return adjacency;
+    }
+
+    private int checkIndex(int vertex) {
+        if (vertex < 0 || vertex >= getVertexCount()) {
+            throw new IndexOutOfBoundsException("Vertex index " + vertex + " out of range");
+        }
+        return vertex;
+    }
+
+    public void printGraph() {
+        int vertices = getVertexCount();
+        CsrGraph g = toCsr();
+        for (int i = 0; i < vertices; i++) {
+            System.out.print("Vertex " + i + " is connected to: ");
+            for (int e = g.firstEdge(i); e < g.endEdge(i); e++) {
+                System.out.print(getVertex(g.getTarget(e)) + " (weight: " + g.getWeight(e) + "), ");
+            }
+            System.out.println();
+        }
+    }
+
+    // Minimum spanning forest with Prim; kept for the original API
+    public void prim() {
+        minimumSpanningForest(MstAlgorithm.PRIM);
+    }
+
+    // Minimum spanning forest of the graph, with directed edges treated as
+    // undirected. Kruskal suits sparse graphs, Boruvka uses every core.
+    public MinimumSpanningForest<T> minimumSpanningForest(MstAlgorithm algorithm) {
+        int vertices = getVertexCount();
+        CsrGraph g = bothWays ? toCsr() : toCsr().symmetrize();
+        int capacity = Math.max(vertices - 1, 0);
+        int[] from = new int[capacity];
+        int[] to = new int[capacity];
+        long[] weight = new long[capacity];
+        int count;
+        switch (algorithm) {
+            case KRUSKAL:
+                count = SpanningForests.kruskal(g, from, to, weight);
+                break;
+            case BORUVKA:
+                count = SpanningForests.boruvka(g, from, to, weight);
+                break;
+            default:
+                count = SpanningForests.prim(g, from, to, weight);
+                break;
+        }
+        return new MinimumSpanningForest<>(this, from, to, weight, count);
+    }
+
+    // Shortest paths from the first vertex; kept for the original API, see shortestPaths
+    public void dijkstra() {
+        if (getVertexCount() > 0) {
+            shortestPaths(getVertex(0));
+        }
+    }
+
+    // Full shortest-path tree from the source
+    public ShortestPathResult<T> shortestPaths(T source) {
+        int start = requireIndex(source);
+        ShortestPathCache<T> cache = pathCache;
+        if (cache == null) {
+            return dijkstra(start, -1);
+        }
+        ShortestPathResult<T> tree = cache.get(start, modCount);
+        if (tree == null) {
+            tree = dijkstra(start, -1);
+            cache.put(start, tree, modCount);
+        }
+        return tree;
+    }
+
+    // Full shortest-path tree from the source by delta-stepping, which
+    // relaxes whole buckets of vertices at once across all cores. The bucket
+    // width is derived from the edge weights; bypasses the path cache.
+    public ShortestPathResult<T> deltaStepping(T source) {
+        return deltaStepping(source, 0);
+    }
+
+    // As above with a fixed bucket width; 0 derives it from the edge weights
+    public ShortestPathResult<T> deltaStepping(T source, long delta) {
+        if (delta < 0) {
+            throw new IllegalArgumentException("Bucket width must not be negative: " + delta);
+        }
+        int vertices = getVertexCount();
+        int start = requireIndex(source);
+        long[] distance = new long[vertices];
+        int[] parent = new int[vertices];
+        int reached = DeltaStepping.run(toCsr(), toReverseCsr(), start, delta, distance, parent);
+        return new ShortestPathResult<>(this, start, distance, parent, reached);
+    }
+
+    // Point-to-point query: the search stops as soon as the target is settled.
+    // A cached tree from the source answers it, but the partial tree of an
+    // early exit is never cached.
+    public ShortestPathResult<T> shortestPath(T source, T target) {
+        int start = requireIndex(source);
+        int end = requireIndex(target);
+        ShortestPathCache<T> cache = pathCache;
+        if (cache != null) {
+            ShortestPathResult<T> tree = cache.get(start, modCount);
+            if (tree != null) {
+                return tree;
+            }
+        }
+        return dijkstra(start, end);
+    }
+
+    // Point-to-point query with a choice of engine. BIDIRECTIONAL searches
+    // from both ends at once; ALT runs A* guided by landmark lower bounds,
+    // computed on first use unless prepareLandmarks was called. Both settle far
+    // fewer vertices than DIJKSTRA on large graphs and bypass the path cache.
+    public ShortestPathResult<T> shortestPath(T source, T target, RoutingAlgorithm algorithm) {
+        int vertices = getVertexCount();
+        if (algorithm == RoutingAlgorithm.DIJKSTRA) {
+            return shortestPath(source, target);
+        }
+        int start = requireIndex(source);
+        int end = requireIndex(target);
+        long[] distance = new long[vertices];
+        int[] parent = new int[vertices];
+        int settled;
+        if (algorithm == RoutingAlgorithm.BIDIRECTIONAL) {
+            settled = PointToPointSearch.bidirectional(toCsr(), toReverseCsr(), start, end, distance, parent);
+        } else {
+            if (landmarks == null) {
+                prepareLandmarks(Landmarks.DEFAULT_COUNT);
+            }
+            settled = PointToPointSearch.alt(toCsr(), landmarks, start, end, distance, parent);
+        }
+        return new ShortestPathResult<>(this, start, distance, parent, settled);
+    }
+
+    // Precomputes ALT distances to and from count landmarks, picked farthest
+    // first. Costs two Dijkstra runs and 2 * V longs per landmark; the result
+    // is kept until the graph changes.
+    public void prepareLandmarks(int count) {
+        landmarks = new Landmarks(toCsr(), toReverseCsr(), count);
+    }
+
+    // Preprocesses the graph into a contraction hierarchy, whose queries
+    // settle a tiny fraction of the vertices. Preprocessing is expensive and
+    // the hierarchy does not follow later mutations; build it on a graph that
+    // stays fixed for many queries.
+    public ContractionHierarchy<T> contractionHierarchy() {
+        return new ContractionHierarchy<>(this, toCsr());
+    }
+
+    // Distances between every pair of vertices. FLOYD_WARSHALL suits dense
+    // graphs and runs in O(V^3); JOHNSON suits sparse ones and runs in
+    // O(V * (V + E) * log(V)). Both use all cores and allow negative weights.
+    public DistanceMatrix<T> allPairsShortestPaths(AllPairsAlgorithm algorithm) {
+        int vertices = getVertexCount();
+        long[] distance = AllPairsShortestPaths.newMatrix(vertices);
+        if (algorithm == AllPairsAlgorithm.FLOYD_WARSHALL) {
+            AllPairsShortestPaths.floydWarshall(toCsr(), distance);
+        } else {
+            AllPairsShortestPaths.johnson(toCsr(), distance);
+        }
+        return new DistanceMatrix<>(this, vertices, distance);
+    }
+
+    // Bulk-synchronous engine over the current graph with the given number
+    // of partitions, each run by its own worker thread
+    public PregelEngine<T> pregel(int partitions) {
+        return pregel(partitions, PregelEngine.Execution.THREADS);
+    }
+
+    // As above; PROCESSES runs each partition in its own JVM on this machine
+    // and exchanges messages over loopback sockets
+    public PregelEngine<T> pregel(int partitions, PregelEngine.Execution execution) {
+        return new PregelEngine<>(this, toCsr(), partitions, execution);
+    }
+
+    // PageRank with damping 0.85, iterated until the ranks change by less
+    // than 1e-9 in total or for at most 100 iterations
+    public PageRank<T> pageRank() {
+        return pageRank(0.85, 1e-9, 100, false);
+    }
+
+    // PageRank by parallel power iteration. The tolerance bounds the L1 change
+    // of the rank vector between iterations; weighted splits a vertex's rank
+    // over its out-edges in proportion to their weights instead of evenly.
+    public PageRank<T> pageRank(double damping, double tolerance, int maxIterations, boolean weighted) {
+        return new PageRank<>(this, toCsr(), toReverseCsr(), null, damping, tolerance, maxIterations, weighted);
+    }
+
+    // PageRank whose random jumps, and the rank of dangling vertices, go only
+    // to the given sources, ranking vertices by their proximity to them
+    public PageRank<T> personalizedPageRank(Collection<T> sources, double damping, double tolerance,
+            int maxIterations, boolean weighted) {
+        if (sources.isEmpty()) {
+            throw new IllegalArgumentException("Personalized PageRank needs at least one source");
+        }
+        double[] teleport = new double[getVertexCount()];
+        int distinct = 0;
+        for (T source : sources) {
+            int index = requireIndex(source);
+            if (teleport[index] == 0) {
+                teleport[index] = 1;
+                distinct++;
+            }
+        }
+        for (int v = 0; v < teleport.length; v++) {
+            teleport[v] /= distinct;
+        }
+        return new PageRank<>(this, toCsr(), toReverseCsr(), teleport, damping, tolerance, maxIterations, weighted);
+    }
+
+    // Caches up to capacity full shortest-path trees for shortestPaths and
+    // shortestPath. Any addVertex or addEdge empties the cache.
+    public ShortestPathCache<T> enablePathCache(int capacity, ShortestPathCache.Eviction eviction) {
+        pathCache = new ShortestPathCache<>(capacity, eviction, modCount);
+        return pathCache;
+    }
+
+    public void disablePathCache() {
+        pathCache = null;
+    }
+
+    // The active cache with its hit, miss and eviction counters, null if disabled
+    public ShortestPathCache<T> getPathCache() {
+        return pathCache;
+    }
+
+    private ShortestPathResult<T> dijkstra(int source, int target) {
+        int vertices = getVertexCount();
+        long[] distance = new long[vertices];
+        int[] parent = new int[vertices];
+        int settled = DijkstraSearch.run(toCsr(), source, target, distance, parent);
+        return new ShortestPathResult<>(this, source, distance, parent, settled);
+    }
+
+    // Hop distances and BFS tree from the source. DIRECTION_OPTIMIZING switches
+    // to bottom-up steps on large frontiers, which pays off on low-diameter graphs.
+    // PARALLEL expands each level across the fork/join common pool.
+    public BfsResult<T> bfs(T source, BfsMode mode) {
+        int vertices = getVertexCount();
+        int start = requireIndex(source);
+        int[] level = new int[vertices];
+        int[] parent = new int[vertices];
+        if (mode == BfsMode.DIRECTION_OPTIMIZING) {
+            BreadthFirstSearch.directionOptimizing(toCsr(), toReverseCsr(), start, level, parent);
+        } else if (mode == BfsMode.PARALLEL) {
+            BreadthFirstSearch.parallel(toCsr(), start, level, parent);
+        } else {
+            BreadthFirstSearch.topDown(toCsr(), start, level, parent);
+        }
+        return new BfsResult<>(this, start, level, parent);
+    }
+
+    // Lazy traversal of the vertices the source reaches, as vertex indices
+    public GraphTraversal traverse(T source, TraversalOrder order) {
+        return traverse(source, order, Integer.MAX_VALUE);
+    }
+
+    // As above, without exploring past maxDepth edges from the source
+    public GraphTraversal traverse(T source, TraversalOrder order, int maxDepth) {
+        return new GraphTraversal(toCsr(), order, requireIndex(source), maxDepth, null);
+    }
+
+    // Lazy traversal of every vertex, one tree per unvisited root in index order
+    public GraphTraversal traverse(TraversalOrder order) {
+        return new GraphTraversal(toCsr(), order, -1, Integer.MAX_VALUE, null);
+    }
+
+    public void BFS() {
+        print(new GraphTraversal(toCsr(), TraversalOrder.BREADTH_FIRST, -1, Integer.MAX_VALUE, null));
+    }
+
+    public void BFSUtil(int vertex, boolean[] visited) {
+        print(new GraphTraversal(toCsr(), TraversalOrder.BREADTH_FIRST, vertex, Integer.MAX_VALUE, visited));
+    }
+
+    public void DFS() {
+        print(new GraphTraversal(toCsr(), TraversalOrder.DEPTH_FIRST_PREORDER, -1, Integer.MAX_VALUE, null));
+    }
+
+    public void DFSUtil(int vertex, boolean[] visited) {
+        print(new GraphTraversal(toCsr(), TraversalOrder.DEPTH_FIRST_PREORDER, vertex, Integer.MAX_VALUE, visited));
+    }
+
+    // One write for the whole traversal instead of one per vertex
+    private static void print(GraphTraversal traversal) {
+        StringBuilder out = new StringBuilder();
+        while (traversal.hasNext()) {
+            out.append(traversal.nextInt()).append(' ');
+        }
+        System.out.print(out);
+    }
+
+    public void isEulerian() {
+        int vertices = getVertexCount();
+        CsrGraph g = toCsr();
+        int odd = 0;
+        for (int i = 0; i < vertices; i++) {
+            if (g.getOutDegree(i) % 2 != 0) {
+                odd++;
+            }
+        }
+
+        if (odd == 0) {
+            System.out.println("Graph is Eulerian");
+        } else if (odd == 2) {
+            System.out.println("Graph is Semi-Eulerian");
+        } else {
+            System.out.println("Graph is not Eulerian");
+        }
+    }
+
+    public void isHamiltonian() {
+        if (hamiltonianSearch().findCycle() == HamiltonianSearch.Status.FOUND) {
+            System.out.println("Graph is Hamiltonian");
+        } else {
+            System.out.println("Graph is not Hamiltonian");
+        }
+    }
+
+    public void isBipartite() {
+        int vertices = getVertexCount();
+        int[] color = new int[vertices];
+        for (int i = 0; i < vertices; i++) {
+            color[i] = -1;
+        }
+
+        for (int i = 0; i < vertices; i++) {
+            if (color[i] == -1) {
+                if (!isBipartiteUtil(i, color)) {
+                    System.out.println("Graph is not Bipartite");
+                    return;
+                }
+            }
+        }
+
+        System.out.println("Graph is Bipartite");
+    }
+
+    public boolean isBipartiteUtil(int vertex, int[] color) {
+        CsrGraph g = toCsr();
+        color[vertex] = 1;
+
+        IntRingBuffer queue = new IntRingBuffer();
+        queue.add(vertex);
+
+        while (!queue.isEmpty()) {
+            int v = queue.poll();
+
+            for (int e = g.firstEdge(v); e < g.endEdge(v); e++) {
+                int u = g.getTarget(e);
+                if (color[u] == -1) {
+                    color[u] = 1 - color[v];
+                    queue.add(u);
+                } else if (color[u] == color[v]) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    public void isPlanar() {
+        int V = getVertexCount();
+        int E = toCsr().getEdgeCount() / 2;
+
+        int F = 2 - V + E;
+
+        if (F == 0) {
+            System.out.println("Graph is Planar");
+        } else {
+            System.out.println("Graph is not Planar");
+        }
+    }
+
+    public void isBiconnected() {
+        int vertices = getVertexCount();
+        int[] disc = new int[vertices];
+        int[] low = new int[vertices];
+        int[] parent = new int[vertices];
+        boolean[] visited = new boolean[vertices];
+        boolean[] ap = new boolean[vertices];
+
+        for (int i = 0; i < vertices; i++) {
+            parent[i] = -1;
+            visited[i] = false;
+            ap[i] = false;
+        }
+
+        for (int i = 0; i < vertices; i++) {
+            if (!visited[i]) {
+                isBiconnectedUtil(i, visited, disc, low, parent, ap);
+            }
+        }
+
+        for (int i = 0; i < vertices; i++) {
+            if (ap[i]) {
+                System.out.println(i + " ");
+            }
+        }
+    }
+
+    public void isBiconnectedUtil(int vertex, boolean[] visited, int[] disc, int[] low, int[] parent, boolean[] ap) {
+        CsrGraph g = toCsr();
+        int children = 0;
+        visited[vertex] = true;
+        int time = 0;
+        disc[vertex] = low[vertex] = ++time;
+
+        for (int e = g.firstEdge(vertex); e < g.endEdge(vertex); e++) {
+            int u = g.getTarget(e);
+            if (!visited[u]) {
+                children++;
+                parent[u] = vertex;
+                isBiconnectedUtil(u, visited, disc, low, parent, ap);
+
+                low[vertex] = Math.min(low[vertex], low[u]);
+
+                if (parent[vertex] == -1 && children > 1) {
+                    ap[vertex] = true;
+                }
+
+                if (parent[vertex] != -1 && low[u] >= disc[vertex]) {
+                    ap[vertex] = true;
+                }
+            } else if (u != parent[vertex]) {
+                low[vertex] = Math.min(low[vertex], disc[u]);
+            }
+        }
+    }
+
+    public void isStronglyConnected() {
+        if (stronglyConnectedComponents().getComponentCount() <= 1) {
+            System.out.println("Graph is Strongly Connected");
+        } else {
+            System.out.println("Graph is not Strongly Connected");
+        }
+    }
+
+    // Component id per vertex and the condensation DAG, from an iterative
+    // Tarjan search that cannot overflow the call stack on long paths
+    public StronglyConnectedComponents<T> stronglyConnectedComponents() {
+        return new StronglyConnectedComponents<>(this, toCsr());
+    }
+
+    // Connected components of a bothWays graph, weakly connected components
+    // of a directed one, from a lock-free union-find fed by all cores
+    public ConnectedComponents<T> connectedComponents() {
+        return new ConnectedComponents<>(this, toCsr(), bothWays);
+    }
+
+    public void hamiltonianCycle() {
+        HamiltonianSearch<T> search = hamiltonianSearch();
+        if (search.findCycle() != HamiltonianSearch.Status.FOUND) {
+            System.out.println("No Hamiltonian Cycle");
+        } else {
+            printPath(search.getPathByIndex());
+        }
+    }
+
+    // Held-Karp for small graphs, parallel branch and bound above that. Use
+    // withTimeout and cancel on the returned search to bound the work.
+    public HamiltonianSearch<T> hamiltonianSearch() {
+        return new HamiltonianSearch<>(this, toCsr());
+    }
+
+    public void printPath(int[] path) {
+        for (int i = 0; i < path.length; i++) {
+            System.out.print(path[i] + " ");
+        }
+        System.out.println(path[0]);
+    }
+
+    public void hamiltonianPath() {
+        HamiltonianSearch<T> search = hamiltonianSearch();
+        if (search.findPath() != HamiltonianSearch.Status.FOUND) {
+            System.out.println("No Hamiltonian Path");
+        } else {
+            int[] path = search.getPathByIndex();
+            for (int i = 0; i < path.length; i++) {
+                System.out.print(path[i] + " ");
+            }
+            System.out.println();
+        }
+    }
+
+    public void topologicalSort() {
+        TopologicalOrder<T> order = topologicalOrder();
+        if (!order.isAcyclic()) {
+            System.out.println("Graph contains cycle");
+        } else {
+            for (int v : order.getOrderByIndex()) {
+                System.out.print(v + " ");
+            }
+        }
+    }
+
+    // Topological order split into waves of vertices whose predecessors are
+    // all in earlier waves, or a cycle if the graph is not a DAG
+    public TopologicalOrder<T> topologicalOrder() {
+        return new TopologicalOrder<>(this, toCsr());
+    }
+}
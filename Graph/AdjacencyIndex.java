@@ -0,0 +1,145 @@
+import java.util.Arrays;
+
+// Edge lookup by endpoints over a CSR graph, with a representation chosen
+// per source vertex. A vertex whose targets fill a large enough share of the
+// vertex range gets a bitset row, answering in O(1) with a popcount rank into
+// its weights; one with at most SCAN_LIMIT out-edges is scanned in the CSR
+// row, which beats any index at that size; any other gets its distinct
+// targets sorted for a binary search. Parallel edges report the lightest
+// weight.
+final class AdjacencyIndex {
+    private static final int SCAN_LIMIT = 16;
+    // A bitset row is used when it takes at most this many bits per target
+    private static final int BITS_PER_TARGET = 64;
+
+    private final CsrGraph g;
+    private final Row[] rows; // null for scanned vertices
+
+    private abstract static class Row {
+        abstract boolean contains(int v);
+
+        // ShortestPathResult.UNREACHABLE if there is no edge to v
+        abstract long weight(int v);
+    }
+
+    private static final class BitsetRow extends Row {
+        private final long[] bits;
+        private final int[] rank; // set bits in the words before each word
+        private final long[] weights; // by target, in increasing target order
+
+        BitsetRow(int n, int[] targets, long[] weights, int count) {
+            bits = new long[(n + 63) >>> 6];
+            for (int i = 0; i < count; i++) {
+                bits[targets[i] >>> 6] |= 1L << targets[i];
+            }
+            rank = new int[bits.length];
+            for (int w = 1; w < bits.length; w++) {
+                rank[w] = rank[w - 1] + Long.bitCount(bits[w - 1]);
+            }
+            this.weights = Arrays.copyOf(weights, count);
+        }
+
+        @Override
+        boolean contains(int v) {
+            return (bits[v >>> 6] & 1L << v) != 0;
+        }
+
+        @Override
+        long weight(int v) {
+            long word = bits[v >>> 6];
+            long bit = 1L << v;
+            if ((word & bit) == 0) {
+                return ShortestPathResult.UNREACHABLE;
+            }
+            return weights[rank[v >>> 6] + Long.bitCount(word & (bit - 1))];
+        }
+    }
+
+    private static final class SortedRow extends Row {
+        private final int[] targets;
+        private final long[] weights;
+
+        SortedRow(int[] targets, long[] weights, int count) {
+            this.targets = Arrays.copyOf(targets, count);
+            this.weights = Arrays.copyOf(weights, count);
+        }
+
+        @Override
+        boolean contains(int v) {
+            return Arrays.binarySearch(targets, v) >= 0;
+        }
+
+        @Override
+        long weight(int v) {
+            int i = Arrays.binarySearch(targets, v);
+            return i < 0 ? ShortestPathResult.UNREACHABLE : weights[i];
+        }
+    }
+
+    AdjacencyIndex(CsrGraph g) {
+        this.g = g;
+        int n = g.getVertexCount();
+        rows = new Row[n];
+        long[] keys = new long[0];
+        int[] targets = new int[0];
+        long[] weights = new long[0];
+        for (int u = 0; u < n; u++) {
+            int degree = g.getOutDegree(u);
+            boolean bitset = degree > 0 && n <= (long) BITS_PER_TARGET * degree;
+            if (!bitset && degree <= SCAN_LIMIT) {
+                continue;
+            }
+            if (keys.length < degree) {
+                keys = new long[degree];
+                targets = new int[degree];
+                weights = new long[degree];
+            }
+            // Sorts the edges by target, carrying the edge id in the low bits
+            int first = g.firstEdge(u);
+            for (int i = 0; i < degree; i++) {
+                keys[i] = (long) g.getTarget(first + i) << 32 | i;
+            }
+            Arrays.sort(keys, 0, degree);
+            int count = 0;
+            for (int i = 0; i < degree; i++) {
+                int target = (int) (keys[i] >>> 32);
+                long weight = g.getWeight(first + (int) keys[i]);
+                if (count > 0 && targets[count - 1] == target) {
+                    weights[count - 1] = Math.min(weights[count - 1], weight);
+                } else {
+                    targets[count] = target;
+                    weights[count++] = weight;
+                }
+            }
+            rows[u] = bitset ? new BitsetRow(n, targets, weights, count) : new SortedRow(targets, weights, count);
+        }
+    }
+
+    boolean hasEdge(int u, int v) {
+        Row row = rows[u];
+        if (row != null) {
+            return row.contains(v);
+        }
+        for (int e = g.firstEdge(u); e < g.endEdge(u); e++) {
+            if (g.getTarget(e) == v) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Lightest weight of the edges u -> v, ShortestPathResult.UNREACHABLE if none
+    long weight(int u, int v) {
+        Row row = rows[u];
+        if (row != null) {
+            return row.weight(v);
+        }
+        long best = ShortestPathResult.UNREACHABLE;
+        for (int e = g.firstEdge(u); e < g.endEdge(u); e++) {
+            if (g.getTarget(e) == v) {
+                best = Math.min(best, g.getWeight(e));
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,246 @@
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// All-pairs shortest path engines. Both fill a row-major V x V matrix with
+// ShortestPathResult.UNREACHABLE for missing paths, accept negative edge
+// weights and throw IllegalStateException on a negative cycle.
+final class AllPairsShortestPaths {
+    // Tile edge for Floyd-Warshall: a 64 x 64 tile of longs is 32 KB, so the
+    // three tiles one update touches stay in L1/L2
+    private static final int TILE = 64;
+    // Sources handled by one fork/join leaf task in Johnson's algorithm
+    private static final int SOURCES_PER_TASK = 16;
+
+    private AllPairsShortestPaths() {
+    }
+
+    static long[] newMatrix(int n) {
+        if ((long) n * n > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Too many vertices for a distance matrix: " + n);
+        }
+        return new long[n * n];
+    }
+
+    // Cache-blocked Floyd-Warshall. For every diagonal tile k it updates tile
+    // (k, k) first, then the tiles in row k and column k, which only depend on
+    // it, then all remaining tiles, which only depend on row and column k. The
+    // last two phases run their tiles on the fork/join common pool.
+    static void floydWarshall(CsrGraph g, long[] dist) {
+        int n = g.getVertexCount();
+        Arrays.fill(dist, ShortestPathResult.UNREACHABLE);
+        for (int u = 0; u < n; u++) {
+            dist[u * n + u] = 0;
+            for (int e = g.firstEdge(u); e < g.endEdge(u); e++) {
+                int v = g.getTarget(e);
+                dist[u * n + v] = Math.min(dist[u * n + v], g.getWeight(e));
+            }
+        }
+
+        int tiles = (n + TILE - 1) / TILE;
+        for (int k = 0; k < tiles; k++) {
+            relaxTile(dist, n, k, k, k);
+            List<RecursiveAction> cross = new ArrayList<>(2 * tiles);
+            for (int t = 0; t < tiles; t++) {
+                if (t != k) {
+                    cross.add(new TileTask(dist, n, k, k, t));
+                    cross.add(new TileTask(dist, n, t, k, k));
+                }
+            }
+            ForkJoinPool.commonPool().invoke(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    invokeAll(cross);
+                }
+            });
+            ForkJoinPool.commonPool().invoke(new RemainingTilesTask(dist, n, tiles, k, 0, tiles * tiles));
+        }
+
+        for (int v = 0; v < n; v++) {
+            if (dist[v * n + v] < 0) {
+                throw new IllegalStateException("Graph contains a negative cycle through vertex index " + v);
+            }
+        }
+    }
+
+    // Relaxes tile (row, col) through the intermediate vertices of tile k
+    private static void relaxTile(long[] dist, int n, int row, int k, int col) {
+        int rowEnd = Math.min((row + 1) * TILE, n);
+        int kEnd = Math.min((k + 1) * TILE, n);
+        int colStart = col * TILE;
+        int colEnd = Math.min((col + 1) * TILE, n);
+        for (int via = k * TILE; via < kEnd; via++) {
+            int viaRow = via * n;
+            for (int i = row * TILE; i < rowEnd; i++) {
+                long toVia = dist[i * n + via];
+                if (toVia == ShortestPathResult.UNREACHABLE) {
+                    continue;
+                }
+                int iRow = i * n;
+                for (int j = colStart; j < colEnd; j++) {
+                    long fromVia = dist[viaRow + j];
+                    if (fromVia != ShortestPathResult.UNREACHABLE && toVia + fromVia < dist[iRow + j]) {
+                        dist[iRow + j] = toVia + fromVia;
+                    }
+                }
+            }
+        }
+    }
+
+    private static class TileTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final long[] dist;
+        private final int n;
+        private final int row;
+        private final int k;
+        private final int col;
+
+        TileTask(long[] dist, int n, int row, int k, int col) {
+            this.dist = dist;
+            this.n = n;
+            this.row = row;
+            this.k = k;
+            this.col = col;
+        }
+
+        @Override
+        protected void compute() {
+            relaxTile(dist, n, row, k, col);
+        }
+    }
+
+    // Every tile outside row k and column k, numbered row-major from start to end
+    private static class RemainingTilesTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final long[] dist;
+        private final int n;
+        private final int tiles;
+        private final int k;
+        private final int start;
+        private final int end;
+
+        RemainingTilesTask(long[] dist, int n, int tiles, int k, int start, int end) {
+            this.dist = dist;
+            this.n = n;
+            this.tiles = tiles;
+            this.k = k;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start > 1) {
+                int mid = (start + end) >>> 1;
+                invokeAll(new RemainingTilesTask(dist, n, tiles, k, start, mid),
+                        new RemainingTilesTask(dist, n, tiles, k, mid, end));
+                return;
+            }
+            int row = start / tiles;
+            int col = start % tiles;
+            if (row != k && col != k) {
+                relaxTile(dist, n, row, k, col);
+            }
+        }
+    }
+
+    // Johnson: Bellman-Ford potentials from a virtual source make every edge
+    // weight non-negative, then one Dijkstra per source runs on the fork/join
+    // common pool and its distances are shifted back into the matrix.
+    static void johnson(CsrGraph g, long[] dist) {
+        int n = g.getVertexCount();
+        long[] potential = potentials(g);
+        CsrGraph reweighted = g;
+        if (potential != null) {
+            int m = g.getEdgeCount();
+            int[] offsets = new int[n + 1];
+            int[] targets = new int[m];
+            long[] weights = new long[m];
+            for (int u = 0; u < n; u++) {
+                offsets[u + 1] = g.endEdge(u);
+                for (int e = g.firstEdge(u); e < g.endEdge(u); e++) {
+                    int v = g.getTarget(e);
+                    targets[e] = v;
+                    weights[e] = g.getWeight(e) + potential[u] - potential[v];
+                }
+            }
+            reweighted = new ArrayCsrGraph(offsets, targets, weights);
+        }
+        ForkJoinPool.commonPool().invoke(new SourcesTask(reweighted, potential, dist, 0, n));
+    }
+
+    // Bellman-Ford with every vertex at distance 0 from the virtual source.
+    // Returns null when no edge is negative, since all potentials are then 0.
+    private static long[] potentials(CsrGraph g) {
+        int n = g.getVertexCount();
+        boolean negative = false;
+        for (int e = 0; e < g.getEdgeCount() && !negative; e++) {
+            negative = g.getWeight(e) < 0;
+        }
+        if (!negative) {
+            return null;
+        }
+        long[] potential = new long[n];
+        for (int round = 0; round <= n; round++) {
+            boolean changed = false;
+            for (int u = 0; u < n; u++) {
+                for (int e = g.firstEdge(u); e < g.endEdge(u); e++) {
+                    int v = g.getTarget(e);
+                    if (potential[u] + g.getWeight(e) < potential[v]) {
+                        potential[v] = potential[u] + g.getWeight(e);
+                        changed = true;
+                    }
+                }
+            }
+            if (!changed) {
+                return potential;
+            }
+        }
+        throw new IllegalStateException("Graph contains a negative cycle");
+    }
+
+    private static class SourcesTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final CsrGraph g;
+        private final long[] potential;
+        private final long[] dist;
+        private final int start;
+        private final int end;
+
+        SourcesTask(CsrGraph g, long[] potential, long[] dist, int start, int end) {
+            this.g = g;
+            this.potential = potential;
+            this.dist = dist;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start > SOURCES_PER_TASK) {
+                int mid = (start + end) >>> 1;
+                invokeAll(new SourcesTask(g, potential, dist, start, mid), new SourcesTask(g, potential, dist, mid, end));
+                return;
+            }
+            int n = g.getVertexCount();
+            long[] row = new long[n];
+            int[] parent = new int[n];
+            for (int s = start; s < end; s++) {
+                DijkstraSearch.run(g, s, -1, row, parent);
+                if (potential != null) {
+                    for (int v = 0; v < n; v++) {
+                        if (row[v] != ShortestPathResult.UNREACHABLE) {
+                            row[v] += potential[v] - potential[s];
+                        }
+                    }
+                }
+                System.arraycopy(row, 0, dist, s * n, n);
+            }
+        }
+    }
+}
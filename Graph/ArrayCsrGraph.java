@@ -0,0 +1,44 @@
+// CSR graph held in three heap arrays
+final class ArrayCsrGraph extends CsrGraph {
+    private final int vertices;
+    private final int[] offsets;
+    private final int[] targets;
+    private final long[] weights;
+
+    ArrayCsrGraph(int[] offsets, int[] targets, long[] weights) {
+        this.vertices = offsets.length - 1;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+    }
+
+    @Override
+    public int getVertexCount() {
+        return vertices;
+    }
+
+    @Override
+    public int getEdgeCount() {
+        return offsets[vertices];
+    }
+
+    @Override
+    public int firstEdge(int vertex) {
+        return offsets[vertex];
+    }
+
+    @Override
+    public int endEdge(int vertex) {
+        return offsets[vertex + 1];
+    }
+
+    @Override
+    public int getTarget(int edge) {
+        return targets[edge];
+    }
+
+    @Override
+    public long getWeight(int edge) {
+        return weights[edge];
+    }
+}
@@ -0,0 +1,71 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Breadth-first search tree: the level (hop distance) and BFS parent of every
+// vertex reached from the source
+public class BfsResult<T> {
+    private final AbstractDirectedWeightedGraph<T> graph;
+    private final int source;
+    private final int[] level;
+    private final int[] parent;
+
+    BfsResult(AbstractDirectedWeightedGraph<T> graph, int source, int[] level, int[] parent) {
+        this.graph = graph;
+        this.source = source;
+        this.level = level;
+        this.parent = parent;
+    }
+
+    public T getSource() {
+        return graph.getVertex(source);
+    }
+
+    public boolean isReached(T vertex) {
+        return level[indexOf(vertex)] != -1;
+    }
+
+    // Number of edges on a shortest path from the source, -1 if unreached
+    public int getLevel(T vertex) {
+        return level[indexOf(vertex)];
+    }
+
+    public int getLevelByIndex(int vertex) {
+        return level[vertex];
+    }
+
+    // BFS parent index, -1 for the source and unreached vertices
+    public int getParentByIndex(int vertex) {
+        return parent[vertex];
+    }
+
+    // The arrays themselves, indexed by vertex index; do not modify
+    public int[] getLevels() {
+        return level;
+    }
+
+    public int[] getParents() {
+        return parent;
+    }
+
+    public List<T> getPath(T target) {
+        List<T> path = new ArrayList<>();
+        int v = indexOf(target);
+        if (level[v] == -1) {
+            return path;
+        }
+        for (; v != -1; v = parent[v]) {
+            path.add(graph.getVertex(v));
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    private int indexOf(T vertex) {
+        int index = graph.getIndex(vertex);
+        if (index == -1) {
+            throw new IllegalArgumentException("Vertex not found: " + vertex);
+        }
+        return index;
+    }
+}
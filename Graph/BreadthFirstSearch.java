@@ -0,0 +1,226 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Single-source BFS engines over a CSR graph. All of them fill level[] (-1
+// for unreached vertices) and parent[] (-1 for the source and unreached).
+final class BreadthFirstSearch {
+    // Beamer et al. switching heuristics: go bottom-up once the frontier's
+    // edges exceed 1/ALPHA of the unexplored edges, and back to top-down once
+    // the frontier holds fewer than 1/BETA of the vertices
+    private static final int ALPHA = 14;
+    private static final int BETA = 24;
+    // Frontier vertices handled by one fork/join leaf task
+    private static final int PARALLEL_CHUNK = 1024;
+
+    private BreadthFirstSearch() {
+    }
+
+    static void topDown(CsrGraph g, int source, int[] level, int[] parent) {
+        Arrays.fill(level, -1);
+        Arrays.fill(parent, -1);
+        IntRingBuffer queue = new IntRingBuffer();
+        level[source] = 0;
+        queue.add(source);
+        while (!queue.isEmpty()) {
+            int u = queue.poll();
+            for (int e = g.firstEdge(u); e < g.endEdge(u); e++) {
+                int v = g.getTarget(e);
+                if (level[v] == -1) {
+                    level[v] = level[u] + 1;
+                    parent[v] = u;
+                    queue.add(v);
+                }
+            }
+        }
+    }
+
+    // Direction-optimizing BFS. Top-down steps expand a sparse frontier list;
+    // bottom-up steps let every unvisited vertex look for a parent in a bitset
+    // frontier through its in-edges (the rows of the transposed graph).
+    static void directionOptimizing(CsrGraph g, CsrGraph reverse, int source, int[] level, int[] parent) {
+        Arrays.fill(level, -1);
+        Arrays.fill(parent, -1);
+        int n = g.getVertexCount();
+        int[] frontier = new int[n];
+        int[] next = new int[n];
+        long[] frontierBits = new long[(n + 63) >>> 6];
+        long[] nextBits = new long[frontierBits.length];
+
+        level[source] = 0;
+        frontier[0] = source;
+        int frontierSize = 1;
+        long frontierEdges = g.getOutDegree(source);
+        long unexploredEdges = g.getEdgeCount() - frontierEdges;
+        boolean bottomUp = false;
+
+        for (int depth = 1; frontierSize > 0; depth++) {
+            if (!bottomUp && frontierEdges > unexploredEdges / ALPHA) {
+                bottomUp = true;
+                Arrays.fill(frontierBits, 0);
+                for (int i = 0; i < frontierSize; i++) {
+                    frontierBits[frontier[i] >>> 6] |= 1L << frontier[i];
+                }
+            } else if (bottomUp && frontierSize < n / BETA) {
+                bottomUp = false;
+                frontierSize = 0;
+                for (int v = 0; v < n; v++) {
+                    if ((frontierBits[v >>> 6] & (1L << v)) != 0) {
+                        frontier[frontierSize++] = v;
+                    }
+                }
+            }
+
+            int nextSize = 0;
+            long nextEdges = 0;
+            if (bottomUp) {
+                Arrays.fill(nextBits, 0);
+                for (int v = 0; v < n; v++) {
+                    if (level[v] != -1) {
+                        continue;
+                    }
+                    for (int e = reverse.firstEdge(v); e < reverse.endEdge(v); e++) {
+                        int u = reverse.getTarget(e);
+                        if ((frontierBits[u >>> 6] & (1L << u)) != 0) {
+                            level[v] = depth;
+                            parent[v] = u;
+                            nextBits[v >>> 6] |= 1L << v;
+                            nextSize++;
+                            nextEdges += g.getOutDegree(v);
+                            break;
+                        }
+                    }
+                }
+                long[] swap = frontierBits;
+                frontierBits = nextBits;
+                nextBits = swap;
+            } else {
+                for (int i = 0; i < frontierSize; i++) {
+                    int u = frontier[i];
+                    for (int e = g.firstEdge(u); e < g.endEdge(u); e++) {
+                        int v = g.getTarget(e);
+                        if (level[v] == -1) {
+                            level[v] = depth;
+                            parent[v] = u;
+                            next[nextSize++] = v;
+                            nextEdges += g.getOutDegree(v);
+                        }
+                    }
+                }
+                int[] swap = frontier;
+                frontier = next;
+                next = swap;
+            }
+            frontierSize = nextSize;
+            frontierEdges = nextEdges;
+            unexploredEdges -= nextEdges;
+        }
+    }
+
+    // Level-synchronous BFS: each frontier is split across the fork/join
+    // common pool, and vertices are claimed by a CAS on a shared visited bitset
+    // so each one gets exactly one parent.
+    static void parallel(CsrGraph g, int source, int[] level, int[] parent) {
+        Arrays.fill(level, -1);
+        Arrays.fill(parent, -1);
+        int n = g.getVertexCount();
+        AtomicLongArray visited = new AtomicLongArray((n + 63) >>> 6);
+        int[] frontier = new int[n];
+        int[] next = new int[n];
+        AtomicInteger nextSize = new AtomicInteger();
+
+        visited.set(source >>> 6, 1L << source);
+        level[source] = 0;
+        frontier[0] = source;
+        int frontierSize = 1;
+        for (int depth = 1; frontierSize > 0; depth++) {
+            nextSize.set(0);
+            ForkJoinPool.commonPool().invoke(
+                    new ExpandTask(g, visited, level, parent, frontier, next, nextSize, depth, 0, frontierSize));
+            int[] swap = frontier;
+            frontier = next;
+            next = swap;
+            frontierSize = nextSize.get();
+        }
+    }
+
+    private static boolean claim(AtomicLongArray visited, int v) {
+        int word = v >>> 6;
+        long bit = 1L << v;
+        long current = visited.get(word);
+        while ((current & bit) == 0) {
+            if (visited.compareAndSet(word, current, current | bit)) {
+                return true;
+            }
+            current = visited.get(word);
+        }
+        return false;
+    }
+
+    private static class ExpandTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final CsrGraph g;
+        private final AtomicLongArray visited;
+        private final int[] level;
+        private final int[] parent;
+        private final int[] frontier;
+        private final int[] next;
+        private final AtomicInteger nextSize;
+        private final int depth;
+        private final int start;
+        private final int end;
+
+        ExpandTask(CsrGraph g, AtomicLongArray visited, int[] level, int[] parent, int[] frontier, int[] next,
+                AtomicInteger nextSize, int depth, int start, int end) {
+            this.g = g;
+            this.visited = visited;
+            this.level = level;
+            this.parent = parent;
+            this.frontier = frontier;
+            this.next = next;
+            this.nextSize = nextSize;
+            this.depth = depth;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start > PARALLEL_CHUNK) {
+                int mid = (start + end) >>> 1;
+                invokeAll(new ExpandTask(g, visited, level, parent, frontier, next, nextSize, depth, start, mid),
+                        new ExpandTask(g, visited, level, parent, frontier, next, nextSize, depth, mid, end));
+                return;
+            }
+            // Discovered vertices are staged locally and published in blocks,
+            // so the shared cursor is bumped once per block, not per vertex
+            int[] buffer = new int[256];
+            int buffered = 0;
+            for (int i = start; i < end; i++) {
+                int u = frontier[i];
+                for (int e = g.firstEdge(u); e < g.endEdge(u); e++) {
+                    int v = g.getTarget(e);
+                    if (claim(visited, v)) {
+                        level[v] = depth;
+                        parent[v] = u;
+                        if (buffered == buffer.length) {
+                            flush(buffer, buffered);
+                            buffered = 0;
+                        }
+                        buffer[buffered++] = v;
+                    }
+                }
+            }
+            flush(buffer, buffered);
+        }
+
+        private void flush(int[] buffer, int count) {
+            if (count > 0) {
+                System.arraycopy(buffer, 0, next, nextSize.getAndAdd(count), count);
+            }
+        }
+    }
+}
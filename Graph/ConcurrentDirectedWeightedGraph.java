@@ -0,0 +1,292 @@
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Graph that many threads may write to while others analyse it. Writers add
+// edges under striped locks; readers call snapshot(), which returns an
+// immutable graph in O(1) that offers every algorithm of DirectedWeightedGraph
+// and never blocks, or is blocked by, later writes.
+//
+// Vertices are kept in blocks of 256, each holding the vertex values and one
+// append-only target and weight array per vertex. A snapshot keeps the block
+// table and the per-vertex edge counts as they were; the first write to a
+// block after a snapshot copies that block (its counts and array references,
+// not the edges), so snapshots share every edge array with the live graph and
+// only ever read the prefix that existed when they were taken.
+public class ConcurrentDirectedWeightedGraph<T> {
+    private static final int BLOCK_SHIFT = 8;
+    private static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+    private static final int BLOCK_MASK = BLOCK_SIZE - 1;
+    private static final int STRIPES = 64;
+    private static final int[] NO_TARGETS = new int[0];
+    private static final long[] NO_WEIGHTS = new long[0];
+
+    private final boolean bothWays;
+    private final ConcurrentHashMap<T, Integer> vertexToIndex = new ConcurrentHashMap<>();
+    private final LongAdder edges = new LongAdder();
+    // Edge writers hold the read lock, vertex writers and snapshot() the write
+    // lock, which they keep for O(1) work
+    private final ReentrantReadWriteLock epochLock = new ReentrantReadWriteLock();
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+    private final Object tableLock = new Object();
+
+    private volatile Block[] blocks = new Block[4];
+    private long tableEpoch;
+    private long epoch;
+    private int vertices;
+    private volatile boolean dirty = true;
+    private Snapshot<T> lastSnapshot;
+
+    // Vertices [BLOCK_SIZE * b, BLOCK_SIZE * (b + 1)). A block is only written
+    // in the epoch it was created or copied in.
+    private static final class Block {
+        final long epoch;
+        final Object[] values;
+        final int[] sizes;
+        final int[][] targets;
+        final long[][] weights;
+
+        Block(long epoch) {
+            this.epoch = epoch;
+            values = new Object[BLOCK_SIZE];
+            sizes = new int[BLOCK_SIZE];
+            targets = new int[BLOCK_SIZE][];
+            weights = new long[BLOCK_SIZE][];
+        }
+
+        Block(Block block, long epoch) {
+            this.epoch = epoch;
+            values = block.values.clone();
+            sizes = block.sizes.clone();
+            targets = block.targets.clone();
+            weights = block.weights.clone();
+        }
+    }
+
+    public ConcurrentDirectedWeightedGraph(boolean bothWays) {
+        this.bothWays = bothWays;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public boolean isBothWays() {
+        return bothWays;
+    }
+
+    // Adds the vertex unless it is already present; returns whether it was added
+    public boolean addVertex(T vertex) {
+        epochLock.writeLock().lock();
+        try {
+            if (vertexToIndex.containsKey(vertex)) {
+                return false;
+            }
+            int index = vertices;
+            int b = index >>> BLOCK_SHIFT;
+            if (b == blocks.length) {
+                blocks = Arrays.copyOf(blocks, b * 2);
+                tableEpoch = epoch;
+            }
+            if (blocks[b] == null) {
+                if (tableEpoch != epoch) {
+                    blocks = blocks.clone();
+                    tableEpoch = epoch;
+                }
+                blocks[b] = new Block(epoch);
+            }
+            Block block = writableBlock(b);
+            block.values[index & BLOCK_MASK] = vertex;
+            block.targets[index & BLOCK_MASK] = NO_TARGETS;
+            block.weights[index & BLOCK_MASK] = NO_WEIGHTS;
+            vertexToIndex.put(vertex, index);
+            vertices++;
+            dirty = true;
+            return true;
+        } finally {
+            epochLock.writeLock().unlock();
+        }
+    }
+
+    // Safe to call from any number of threads; only writers to the same
+    // block of source vertices contend
+    public void addEdge(T source, T destination, long weight) {
+        epochLock.readLock().lock();
+        try {
+            Integer sourceIndex = vertexToIndex.get(source);
+            Integer destinationIndex = vertexToIndex.get(destination);
+            if (sourceIndex == null || destinationIndex == null) {
+                throw new IllegalArgumentException("Both vertices must be added before the edge");
+            }
+            if (bothWays) {
+                append(destinationIndex, sourceIndex, weight);
+            }
+            append(sourceIndex, destinationIndex, weight);
+            edges.add(bothWays ? 2 : 1);
+            dirty = true;
+        } finally {
+            epochLock.readLock().unlock();
+        }
+    }
+
+    private void append(int vertex, int target, long weight) {
+        int b = vertex >>> BLOCK_SHIFT;
+        ReentrantLock lock = stripes[b & (STRIPES - 1)];
+        lock.lock();
+        try {
+            Block block = writableBlock(b);
+            int i = vertex & BLOCK_MASK;
+            int size = block.sizes[i];
+            // Slots past size are invisible to every snapshot, so they are
+            // written in place; a full array is replaced, never resized
+            if (size == block.targets[i].length) {
+                int capacity = Math.max(4, size * 2);
+                block.targets[i] = Arrays.copyOf(block.targets[i], capacity);
+                block.weights[i] = Arrays.copyOf(block.weights[i], capacity);
+            }
+            block.targets[i][size] = target;
+            block.weights[i][size] = weight;
+            block.sizes[i] = size + 1;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Block b as it may be written in the current epoch. The caller holds
+    // either the write lock or the read lock and the stripe of b, so no
+    // other thread replaces block b meanwhile.
+    private Block writableBlock(int b) {
+        Block block = blocks[b];
+        if (block.epoch == epoch) {
+            return block;
+        }
+        synchronized (tableLock) {
+            if (tableEpoch != epoch) {
+                blocks = blocks.clone();
+                tableEpoch = epoch;
+            }
+            block = new Block(block, epoch);
+            blocks[b] = block;
+        }
+        return block;
+    }
+
+    // Immutable view of every vertex and edge added so far. Waits only for
+    // in-flight addEdge calls; repeated calls without writes in between
+    // return the same snapshot.
+    public Snapshot<T> snapshot() {
+        epochLock.writeLock().lock();
+        try {
+            if (dirty) {
+                lastSnapshot = new Snapshot<>(bothWays, blocks, vertices, edges.sum(), vertexToIndex);
+                epoch++;
+                dirty = false;
+            }
+            return lastSnapshot;
+        } finally {
+            epochLock.writeLock().unlock();
+        }
+    }
+
+    public int getVertexCount() {
+        return vertexToIndex.size();
+    }
+
+    // Exact once writers are quiescent, a lower bound while they run
+    public long getEdgeCount() {
+        return edges.sum();
+    }
+
+    public int getIndex(T vertex) {
+        Integer index = vertexToIndex.get(vertex);
+        return index == null ? -1 : index;
+    }
+
+    public boolean containsVertex(T vertex) {
+        return vertexToIndex.containsKey(vertex);
+    }
+
+    // Graph as it was when snapshot() returned it. Its CSR view is built on
+    // the first algorithm call, in O(V + E), and may be shared by threads.
+    public static final class Snapshot<T> extends AbstractDirectedWeightedGraph<T> {
+        private final Block[] blocks;
+        private final int vertices;
+        private final long edges;
+        private final ConcurrentHashMap<T, Integer> vertexToIndex;
+
+        Snapshot(boolean bothWays, Block[] blocks, int vertices, long edges, ConcurrentHashMap<T, Integer> vertexToIndex) {
+            super(bothWays);
+            this.blocks = blocks;
+            this.vertices = vertices;
+            this.edges = edges;
+            this.vertexToIndex = vertexToIndex;
+        }
+
+        @Override
+        public int getVertexCount() {
+            return vertices;
+        }
+
+        public long getEdgeCount() {
+            return edges;
+        }
+
+        // Vertices added after the snapshot are not part of it
+        @Override
+        public int getIndex(T vertex) {
+            Integer index = vertexToIndex.get(vertex);
+            return index == null || index >= vertices ? -1 : index;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T getVertex(int index) {
+            if (index < 0 || index >= vertices) {
+                return null;
+            }
+            return (T) blocks[index >>> BLOCK_SHIFT].values[index & BLOCK_MASK];
+        }
+
+        public int getOutDegree(int vertex) {
+            return blocks[vertex >>> BLOCK_SHIFT].sizes[vertex & BLOCK_MASK];
+        }
+
+        public int getNeighbor(int vertex, int i) {
+            return blocks[vertex >>> BLOCK_SHIFT].targets[vertex & BLOCK_MASK][i];
+        }
+
+        public long getNeighborWeight(int vertex, int i) {
+            return blocks[vertex >>> BLOCK_SHIFT].weights[vertex & BLOCK_MASK][i];
+        }
+
+        @Override
+        public synchronized CsrGraph toCsr() {
+            return super.toCsr();
+        }
+
+        @Override
+        synchronized CsrGraph toReverseCsr() {
+            return super.toReverseCsr();
+        }
+
+        @Override
+        CsrGraph buildCsr() {
+            if (edges > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Too many edges for a CSR view: " + edges);
+            }
+            int[] offsets = new int[vertices + 1];
+            int[] targets = new int[(int) edges];
+            long[] weights = new long[(int) edges];
+            for (int v = 0; v < vertices; v++) {
+                Block block = blocks[v >>> BLOCK_SHIFT];
+                int i = v & BLOCK_MASK;
+                int size = block.sizes[i];
+                offsets[v + 1] = offsets[v] + size;
+                System.arraycopy(block.targets[i], 0, targets, offsets[v], size);
+                System.arraycopy(block.weights[i], 0, weights, offsets[v], size);
+            }
+            return new ArrayCsrGraph(offsets, targets, weights);
+        }
+    }
+}
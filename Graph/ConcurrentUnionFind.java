@@ -0,0 +1,52 @@
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+// Disjoint-set forest that takes unions from many threads without locks.
+// Every slot only ever moves, by a CAS, to a smaller index than it held, so
+// the forest stays acyclic under any interleaving and the root of a set is
+// its smallest element.
+final class ConcurrentUnionFind {
+    private final AtomicIntegerArray parent;
+
+    ConcurrentUnionFind(int size) {
+        parent = new AtomicIntegerArray(size);
+        for (int i = 0; i < size; i++) {
+            parent.set(i, i);
+        }
+    }
+
+    // Current parent slot; a parent always has a smaller index than its child
+    int parent(int x) {
+        return parent.get(x);
+    }
+
+    // Rem's algorithm: walks both paths upward in step, always moving the
+    // side with the larger parent, and splices that side's slot over to the
+    // smaller parent on the way. Every splice only moves a subtree into the
+    // set it is being merged with, so a concurrent union sees a valid forest.
+    // Returns false when both elements were already in the same set.
+    boolean union(int a, int b) {
+        while (true) {
+            int pa = parent.get(a);
+            int pb = parent.get(b);
+            if (pa == pb) {
+                return false;
+            }
+            if (pa < pb) {
+                int swap = a;
+                a = b;
+                b = swap;
+                swap = pa;
+                pa = pb;
+                pb = swap;
+            }
+            // Fails only if another thread moved a meanwhile; retry from there
+            if (a == pa) {
+                if (parent.compareAndSet(a, a, pb)) {
+                    return true;
+                }
+            } else if (parent.compareAndSet(a, pa, pb)) {
+                a = pa;
+            }
+        }
+    }
+}
@@ -0,0 +1,136 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Components of the graph with edge directions ignored, found by merging the
+// endpoints of every edge in a ConcurrentUnionFind. The edges are split
+// across the fork/join common pool in ranges of about equal vertices plus
+// edges. Component ids are numbered in order of each component's smallest
+// vertex index, so they do not depend on the thread schedule.
+public class ConnectedComponents<T> {
+    private static final int PARALLEL_THRESHOLD = 1 << 14;
+
+    private final AbstractDirectedWeightedGraph<T> graph;
+    private final int[] component;
+    private final int count;
+    private final int[] sizes;
+
+    ConnectedComponents(AbstractDirectedWeightedGraph<T> graph, CsrGraph g, boolean bothWays) {
+        this.graph = graph;
+        int n = g.getVertexCount();
+        ConcurrentUnionFind sets = new ConcurrentUnionFind(n);
+        UnionTask task = new UnionTask(g, sets, bothWays, 0, n);
+        if (n > 0 && task.cost() > PARALLEL_THRESHOLD) {
+            ForkJoinPool.commonPool().invoke(task);
+        } else if (n > 0) {
+            task.compute();
+        }
+
+        // A parent has a smaller index than its child, so in index order every
+        // vertex finds its parent, and through it its root, already numbered
+        component = new int[n];
+        int components = 0;
+        for (int v = 0; v < n; v++) {
+            int parent = sets.parent(v);
+            component[v] = parent == v ? components++ : component[parent];
+        }
+        this.count = components;
+        this.sizes = new int[count];
+        for (int v = 0; v < n; v++) {
+            sizes[component[v]]++;
+        }
+    }
+
+    public int getComponentCount() {
+        return count;
+    }
+
+    public int getComponent(T vertex) {
+        int index = graph.getIndex(vertex);
+        if (index == -1) {
+            throw new IllegalArgumentException("Vertex not found: " + vertex);
+        }
+        return component[index];
+    }
+
+    public int getComponentByIndex(int vertex) {
+        return component[vertex];
+    }
+
+    // Component id of every vertex, by vertex index
+    public int[] getComponentsByIndex() {
+        return component.clone();
+    }
+
+    public int getComponentSize(int component) {
+        return sizes[component];
+    }
+
+    // Size of every component, by component id
+    public int[] getComponentSizes() {
+        return sizes.clone();
+    }
+
+    public List<T> getMembers(int component) {
+        List<T> members = new ArrayList<>(sizes[component]);
+        for (int v = 0; v < this.component.length; v++) {
+            if (this.component[v] == component) {
+                members.add(graph.getVertex(v));
+            }
+        }
+        return members;
+    }
+
+    private static class UnionTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final CsrGraph g;
+        private final ConcurrentUnionFind sets;
+        private final boolean bothWays;
+        private final int start;
+        private final int end;
+
+        UnionTask(CsrGraph g, ConcurrentUnionFind sets, boolean bothWays, int start, int end) {
+            this.g = g;
+            this.sets = sets;
+            this.bothWays = bothWays;
+            this.start = start;
+            this.end = end;
+        }
+
+        long cost() {
+            return (long) (end - start) + g.endEdge(end - 1) - g.firstEdge(start);
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start > 1 && cost() > PARALLEL_THRESHOLD) {
+                // Splits where the vertices plus edges on either side balance
+                int low = start + 1;
+                int high = end - 1;
+                long half = (long) start + g.firstEdge(start) + cost() / 2;
+                while (low < high) {
+                    int mid = (low + high) >>> 1;
+                    if ((long) mid + g.firstEdge(mid) < half) {
+                        low = mid + 1;
+                    } else {
+                        high = mid;
+                    }
+                }
+                invokeAll(new UnionTask(g, sets, bothWays, start, low),
+                        new UnionTask(g, sets, bothWays, low, end));
+                return;
+            }
+            for (int u = start; u < end; u++) {
+                for (int e = g.firstEdge(u); e < g.endEdge(u); e++) {
+                    int v = g.getTarget(e);
+                    // A bothWays graph stores each edge in both rows; one will do
+                    if (v != u && (!bothWays || v < u)) {
+                        sets.union(u, v);
+                    }
+                }
+            }
+        }
+    }
+}
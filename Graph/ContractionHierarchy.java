@@ -0,0 +1,274 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Contraction hierarchy of a graph, for fast repeated point-to-point queries.
+// A query is a bidirectional Dijkstra in which both sides only follow edges
+// to higher-ranked vertices, so it settles a few hundred vertices even on
+// large road networks. Shortcuts are unpacked into original edges when a path
+// is requested. The hierarchy is a snapshot: later changes to the graph are
+// not reflected. Queries may run concurrently; each thread reuses its own
+// search state, so a query costs nothing proportional to V.
+public class ContractionHierarchy<T> {
+    private final AbstractDirectedWeightedGraph<T> graph;
+    private final int n;
+    private final int shortcuts;
+    private final int[] rank;
+    private final int[] upOffsets;
+    private final int[] upTargets;
+    private final long[] upWeights;
+    private final int[] upMiddles;
+    private final int[] downOffsets;
+    private final int[] downSources;
+    private final long[] downWeights;
+    private final int[] downMiddles;
+    private final ThreadLocal<Query> queries;
+
+    ContractionHierarchy(AbstractDirectedWeightedGraph<T> graph, CsrGraph g) {
+        HierarchyBuilder builder = new HierarchyBuilder(g);
+        builder.build();
+        this.graph = graph;
+        this.n = g.getVertexCount();
+        this.shortcuts = builder.getShortcutCount();
+        this.rank = builder.rank;
+        this.upOffsets = builder.upOffsets;
+        this.upTargets = builder.upTargets;
+        this.upWeights = builder.upWeights;
+        this.upMiddles = builder.upMiddles;
+        this.downOffsets = builder.downOffsets;
+        this.downSources = builder.downSources;
+        this.downWeights = builder.downWeights;
+        this.downMiddles = builder.downMiddles;
+        this.queries = ThreadLocal.withInitial(Query::new);
+    }
+
+    public int getShortcutCount() {
+        return shortcuts;
+    }
+
+    // Contraction order of the vertex, 0 for the first one contracted
+    public int getRankByIndex(int vertex) {
+        return rank[vertex];
+    }
+
+    // ShortestPathResult.UNREACHABLE if there is no path
+    public long getDistance(T source, T target) {
+        return getDistanceByIndex(indexOf(source), indexOf(target));
+    }
+
+    public long getDistanceByIndex(int source, int target) {
+        return queries.get().run(checkIndex(source), checkIndex(target));
+    }
+
+    // Vertices from the source to the target, empty if there is no path
+    public List<T> getPath(T source, T target) {
+        int[] path = getPathByIndex(indexOf(source), indexOf(target));
+        List<T> result = new ArrayList<>(path.length);
+        for (int v : path) {
+            result.add(graph.getVertex(v));
+        }
+        return result;
+    }
+
+    public int[] getPathByIndex(int source, int target) {
+        Query query = queries.get();
+        if (query.run(checkIndex(source), checkIndex(target)) == ShortestPathResult.UNREACHABLE) {
+            return new int[0];
+        }
+        return query.unpack(source, target);
+    }
+
+    // Number of vertices settled by the calling thread's last query
+    public int getLastSettledCount() {
+        return queries.get().settled;
+    }
+
+    private int indexOf(T vertex) {
+        int index = graph.getIndex(vertex);
+        if (index == -1) {
+            throw new IllegalArgumentException("Vertex not found: " + vertex);
+        }
+        return index;
+    }
+
+    private int checkIndex(int vertex) {
+        if (vertex < 0 || vertex >= n) {
+            throw new IndexOutOfBoundsException("Vertex index " + vertex + " out of range");
+        }
+        return vertex;
+    }
+
+    // Per-thread search state. Only the entries a query touched are reset
+    // afterwards, so the arrays are allocated once per thread.
+    private class Query {
+        private final long[] forward = new long[n];
+        private final long[] backward = new long[n];
+        private final int[] forwardParent = new int[n];
+        private final int[] backwardParent = new int[n]; // next vertex towards the target
+        private final IndexedDaryHeap forwardQueue = new IndexedDaryHeap(n);
+        private final IndexedDaryHeap backwardQueue = new IndexedDaryHeap(n);
+        private int[] touched = new int[64];
+        private int touchedCount;
+        private int meet;
+        private int settled;
+
+        Query() {
+            Arrays.fill(forward, ShortestPathResult.UNREACHABLE);
+            Arrays.fill(backward, ShortestPathResult.UNREACHABLE);
+        }
+
+        // Every shortest path climbs to its highest vertex and descends from
+        // there, so the two upward searches meet at that vertex. A side stops
+        // once its queue head can no longer improve the best meeting.
+        long run(int source, int target) {
+            reset();
+            touch(source);
+            touch(target);
+            forward[source] = 0;
+            backward[target] = 0;
+            forwardParent[source] = -1;
+            backwardParent[target] = -1;
+            forwardQueue.insertOrDecrease(source, 0);
+            backwardQueue.insertOrDecrease(target, 0);
+            long best = ShortestPathResult.UNREACHABLE;
+            meet = -1;
+            settled = 0;
+
+            while (true) {
+                boolean forwardOpen = !forwardQueue.isEmpty() && forwardQueue.getKey(forwardQueue.get(0)) < best;
+                boolean backwardOpen = !backwardQueue.isEmpty() && backwardQueue.getKey(backwardQueue.get(0)) < best;
+                if (!forwardOpen && !backwardOpen) {
+                    break;
+                }
+                boolean forwardTurn = forwardOpen && (!backwardOpen
+                        || forwardQueue.getKey(forwardQueue.get(0)) <= backwardQueue.getKey(backwardQueue.get(0)));
+                settled++;
+                if (forwardTurn) {
+                    int u = forwardQueue.pollMin();
+                    if (backward[u] != ShortestPathResult.UNREACHABLE && forward[u] + backward[u] < best) {
+                        best = forward[u] + backward[u];
+                        meet = u;
+                    }
+                    for (int e = upOffsets[u]; e < upOffsets[u + 1]; e++) {
+                        relax(forward, forwardParent, forwardQueue, upTargets[e], forward[u] + upWeights[e], u);
+                    }
+                } else {
+                    int u = backwardQueue.pollMin();
+                    if (forward[u] != ShortestPathResult.UNREACHABLE && forward[u] + backward[u] < best) {
+                        best = forward[u] + backward[u];
+                        meet = u;
+                    }
+                    for (int e = downOffsets[u]; e < downOffsets[u + 1]; e++) {
+                        relax(backward, backwardParent, backwardQueue, downSources[e], backward[u] + downWeights[e], u);
+                    }
+                }
+            }
+            forwardQueue.clear();
+            backwardQueue.clear();
+            return best;
+        }
+
+        private void relax(long[] distance, int[] parent, IndexedDaryHeap queue, int v, long candidate, int u) {
+            if (candidate < distance[v]) {
+                if (distance[v] == ShortestPathResult.UNREACHABLE) {
+                    touch(v);
+                }
+                distance[v] = candidate;
+                parent[v] = u;
+                queue.insertOrDecrease(v, candidate);
+            }
+        }
+
+        private void touch(int v) {
+            if (touchedCount == touched.length) {
+                touched = Arrays.copyOf(touched, touchedCount * 2);
+            }
+            touched[touchedCount++] = v;
+        }
+
+        private void reset() {
+            for (int i = 0; i < touchedCount; i++) {
+                forward[touched[i]] = ShortestPathResult.UNREACHABLE;
+                backward[touched[i]] = ShortestPathResult.UNREACHABLE;
+            }
+            touchedCount = 0;
+        }
+
+        // Original vertices of the path found by the last run. The hierarchy
+        // edges are walked from the meeting vertex in both directions and each
+        // shortcut u -> w via m is replaced by u -> m and m -> w.
+        int[] unpack(int source, int target) {
+            int length = 1;
+            for (int v = meet; v != source; v = forwardParent[v]) {
+                length++;
+            }
+            for (int v = meet; v != target; v = backwardParent[v]) {
+                length++;
+            }
+            int[] hierarchyPath = new int[length];
+            int i = 0;
+            for (int v = meet; v != source; v = forwardParent[v]) {
+                i++;
+            }
+            for (int v = meet, j = i; v != -1; v = forwardParent[v]) {
+                hierarchyPath[j--] = v;
+            }
+            for (int v = backwardParent[meet]; v != -1; v = backwardParent[v]) {
+                hierarchyPath[++i] = v;
+            }
+
+            IntRingBuffer path = new IntRingBuffer();
+            path.add(source);
+            for (int k = 1; k < length; k++) {
+                expand(hierarchyPath[k - 1], hierarchyPath[k], path);
+            }
+            int[] result = new int[path.size()];
+            for (int k = 0; k < result.length; k++) {
+                result[k] = path.poll();
+            }
+            return result;
+        }
+
+        // Appends every vertex after from on the original path from -> to
+        private void expand(int from, int to, IntRingBuffer path) {
+            int[] pending = new int[8]; // stack of (from, to) pairs
+            int size = 0;
+            pending[size++] = from;
+            pending[size++] = to;
+            while (size > 0) {
+                int b = pending[--size];
+                int a = pending[--size];
+                int middle = middleOf(a, b);
+                if (middle == -1) {
+                    path.add(b);
+                    continue;
+                }
+                if (size + 4 > pending.length) {
+                    pending = Arrays.copyOf(pending, pending.length * 2);
+                }
+                pending[size++] = middle;
+                pending[size++] = b;
+                pending[size++] = a;
+                pending[size++] = middle;
+            }
+        }
+
+        // The hierarchy edge a -> b is stored at its lower-ranked endpoint
+        private int middleOf(int a, int b) {
+            if (rank[a] < rank[b]) {
+                for (int e = upOffsets[a]; e < upOffsets[a + 1]; e++) {
+                    if (upTargets[e] == b) {
+                        return upMiddles[e];
+                    }
+                }
+            } else {
+                for (int e = downOffsets[b]; e < downOffsets[b + 1]; e++) {
+                    if (downSources[e] == a) {
+                        return downMiddles[e];
+                    }
+                }
+            }
+            throw new IllegalStateException("Missing hierarchy edge " + a + " -> " + b);
+        }
+    }
+}
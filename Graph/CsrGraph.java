@@ -0,0 +1,79 @@
+import java.util.Arrays;
+
+// Immutable compressed-sparse-row view of a graph.
+// The out-edges of vertex v are the edge ids in [firstEdge(v), endEdge(v)),
+// so a traversal walks flat primitive storage instead of boxed Edge objects.
+// The storage is either heap arrays or a memory-mapped snapshot file.
+public abstract class CsrGraph {
+    CsrGraph() {
+    }
+
+    public abstract int getVertexCount();
+
+    public abstract int getEdgeCount();
+
+    public abstract int firstEdge(int vertex);
+
+    public abstract int endEdge(int vertex);
+
+    public abstract int getTarget(int edge);
+
+    public abstract long getWeight(int edge);
+
+    public int getOutDegree(int vertex) {
+        return endEdge(vertex) - firstEdge(vertex);
+    }
+
+    // Same vertices with every edge u -> v also stored as v -> u
+    public CsrGraph symmetrize() {
+        int vertices = getVertexCount();
+        int[] degree = new int[vertices + 1];
+        for (int u = 0; u < vertices; u++) {
+            for (int e = firstEdge(u); e < endEdge(u); e++) {
+                degree[u]++;
+                degree[getTarget(e)]++;
+            }
+        }
+        int[] newOffsets = new int[vertices + 1];
+        for (int u = 0; u < vertices; u++) {
+            newOffsets[u + 1] = newOffsets[u] + degree[u];
+        }
+        int[] next = Arrays.copyOf(newOffsets, vertices);
+        int[] newTargets = new int[newOffsets[vertices]];
+        long[] newWeights = new long[newOffsets[vertices]];
+        for (int u = 0; u < vertices; u++) {
+            for (int e = firstEdge(u); e < endEdge(u); e++) {
+                int v = getTarget(e);
+                newTargets[next[u]] = v;
+                newWeights[next[u]++] = getWeight(e);
+                newTargets[next[v]] = u;
+                newWeights[next[v]++] = getWeight(e);
+            }
+        }
+        return new ArrayCsrGraph(newOffsets, newTargets, newWeights);
+    }
+
+    // Same vertices with every edge reversed, so the rows list in-edges
+    public CsrGraph transpose() {
+        int vertices = getVertexCount();
+        int edges = getEdgeCount();
+        int[] newOffsets = new int[vertices + 1];
+        for (int e = 0; e < edges; e++) {
+            newOffsets[getTarget(e) + 1]++;
+        }
+        for (int v = 0; v < vertices; v++) {
+            newOffsets[v + 1] += newOffsets[v];
+        }
+        int[] next = Arrays.copyOf(newOffsets, vertices);
+        int[] newTargets = new int[edges];
+        long[] newWeights = new long[edges];
+        for (int u = 0; u < vertices; u++) {
+            for (int e = firstEdge(u); e < endEdge(u); e++) {
+                int slot = next[getTarget(e)]++;
+                newTargets[slot] = u;
+                newWeights[slot] = getWeight(e);
+            }
+        }
+        return new ArrayCsrGraph(newOffsets, newTargets, newWeights);
+    }
+}
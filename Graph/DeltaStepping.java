@@ -0,0 +1,474 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Parallel single-source shortest paths by delta-stepping (Meyer and
+// Sanders). Tentative distances sit in buckets of width delta; the lowest
+// non-empty bucket is settled by relaxing the light edges (weight <= delta)
+// of its vertices across the fork/join common pool until it stays empty,
+// and then the heavy edges of everything it held, once. Distances are
+// lowered with an atomic min (a CAS loop on an AtomicLongArray).
+//
+// The buckets form a cyclic window of slots, enough that no relaxation from
+// the current bucket can land more than a window ahead; a tentative distance
+// further out than that parks in an overflow list until the window reaches
+// it. Each vertex records the bucket it is queued in, so it is relaxed at
+// most once per pass over a bucket and stale entries are skipped.
+final class DeltaStepping {
+    private static final int CHUNK = 256;
+    // A vertex with more edges than this has its edge range split as well
+    private static final int EDGE_CHUNK = 4096;
+    private static final int MAX_SLOTS = 1 << 12;
+    private static final int SAMPLE_SIZE = 1024;
+
+    private final CsrGraph g;
+    private final long delta;
+    // The CSR rows reordered light edges first; the offsets are g's
+    private final int[] targets;
+    private final long[] weights;
+    private final int[] lightEnd;
+    private final AtomicLongArray distance;
+    private final AtomicLongArray queued; // Bucket the vertex waits in, -1 if none
+    private final long[] settledIn; // Last bucket whose heavy pass covers the vertex
+    private final int slotCount;
+    private final int[][] slots;
+    private final int[] slotSizes;
+    private int[] overflow = new int[16];
+    private long[] overflowBuckets = new long[16];
+    private int overflowSize;
+    private long overflowMin = Long.MAX_VALUE;
+    private int[] settled = new int[16];
+    private int settledSize;
+    private long current;
+
+    private DeltaStepping(CsrGraph g, long delta) {
+        this.g = g;
+        this.delta = delta;
+        int n = g.getVertexCount();
+        targets = new int[g.getEdgeCount()];
+        weights = new long[g.getEdgeCount()];
+        lightEnd = new int[n];
+        long maxWeight = 0;
+        if (n > 0) {
+            PartitionTask partition = new PartitionTask(0, n);
+            ForkJoinPool.commonPool().invoke(partition);
+            maxWeight = partition.maxWeight;
+        }
+        distance = new AtomicLongArray(n);
+        queued = new AtomicLongArray(n);
+        for (int v = 0; v < n; v++) {
+            distance.set(v, ShortestPathResult.UNREACHABLE);
+            queued.set(v, -1);
+        }
+        settledIn = new long[n];
+        Arrays.fill(settledIn, -1);
+        slotCount = (int) Math.min(MAX_SLOTS, maxWeight / delta + 2);
+        slots = new int[slotCount][16];
+        slotSizes = new int[slotCount];
+    }
+
+    // Fills distance and parent from the source and returns the number of
+    // reachable vertices. delta <= 0 picks the bucket width from the weights.
+    static int run(CsrGraph g, CsrGraph reverse, int source, long delta, long[] distance, int[] parent) {
+        DeltaStepping search = new DeltaStepping(g, delta > 0 ? delta : chooseDelta(g));
+        search.run(source);
+        for (int v = 0; v < distance.length; v++) {
+            distance[v] = search.distance.get(v);
+        }
+        return tightParents(g, reverse, source, distance, parent);
+    }
+
+    // Parents along tight in-edges (distance[u] + weight == distance[v]).
+    // With no negative weights a positive tight edge always comes from a
+    // vertex nearer the source, so those are picked in parallel without any
+    // risk of a cycle. Vertices reached only over zero-weight tight edges are
+    // attached afterwards by a BFS from the rest of the tree.
+    private static int tightParents(CsrGraph g, CsrGraph reverse, int source, long[] distance, int[] parent) {
+        int n = distance.length;
+        ParentTask task = new ParentTask(reverse, source, distance, parent, 0, n);
+        ForkJoinPool.commonPool().invoke(task);
+        if (task.unresolved == 0) {
+            return task.reached;
+        }
+        IntRingBuffer queue = new IntRingBuffer();
+        for (int v = 0; v < n; v++) {
+            if (v == source || parent[v] != -1) {
+                continue;
+            }
+            if (distance[v] == ShortestPathResult.UNREACHABLE) {
+                continue;
+            }
+            for (int e = reverse.firstEdge(v); e < reverse.endEdge(v); e++) {
+                int u = reverse.getTarget(e);
+                if (reverse.getWeight(e) == 0 && distance[u] == distance[v] && (u == source || parent[u] != -1)) {
+                    parent[v] = u;
+                    queue.add(v);
+                    break;
+                }
+            }
+        }
+        while (!queue.isEmpty()) {
+            int u = queue.poll();
+            for (int e = g.firstEdge(u); e < g.endEdge(u); e++) {
+                int v = g.getTarget(e);
+                if (g.getWeight(e) == 0 && v != source && parent[v] == -1 && distance[v] == distance[u]) {
+                    parent[v] = u;
+                    queue.add(v);
+                }
+            }
+        }
+        return task.reached;
+    }
+
+    // Bucket width from a sample of the edge weights. Wide buckets save
+    // phases but re-relax vertices whose first distance was not final; the
+    // Meyer-Sanders choice is about the heaviest weight over the degree,
+    // taken here at the 90th percentile so a few outliers do not inflate it.
+    static long chooseDelta(CsrGraph g) {
+        int edges = g.getEdgeCount();
+        int vertices = g.getVertexCount();
+        if (edges == 0) {
+            return 1;
+        }
+        int samples = Math.min(edges, SAMPLE_SIZE);
+        long[] sample = new long[samples];
+        for (int i = 0; i < samples; i++) {
+            sample[i] = g.getWeight((int) ((long) edges * i / samples));
+        }
+        Arrays.sort(sample);
+        long high = sample[(int) (samples * 9L / 10)];
+        double degree = Math.max(1.0, (double) edges / vertices);
+        return Math.max(1, (long) (high / degree));
+    }
+
+    private void run(int source) {
+        distance.set(source, 0);
+        queued.set(source, 0);
+        append(0, source);
+        while (advance()) {
+            int slot = (int) (current % slotCount);
+            settledSize = 0;
+            while (slotSizes[slot] > 0) {
+                int[] entries = slots[slot];
+                int size = slotSizes[slot];
+                // New entries for this bucket go to a fresh array
+                slots[slot] = new int[16];
+                slotSizes[slot] = 0;
+                relax(entries, size, true);
+            }
+            // Heavy edges never lead back into the bucket, so one pass will do
+            relax(settled, settledSize, false);
+            current++;
+        }
+    }
+
+    private void relax(int[] entries, int size, boolean light) {
+        RelaxTask task = new RelaxTask(entries, 0, size, light);
+        if (size > CHUNK) {
+            ForkJoinPool.commonPool().invoke(task);
+        } else if (size > 0) {
+            task.compute();
+        }
+    }
+
+    // Moves current to the lowest non-empty bucket; false when all are empty
+    private boolean advance() {
+        int empty = 0;
+        while (true) {
+            if (overflowMin - current < slotCount) {
+                unpark();
+                empty = 0;
+            }
+            if (slotSizes[(int) (current % slotCount)] > 0) {
+                return true;
+            }
+            if (++empty < slotCount) {
+                current++;
+            } else if (overflowSize == 0) {
+                return false;
+            } else {
+                // The whole window is empty: jump to the lowest parked bucket
+                current = overflowMin;
+            }
+        }
+    }
+
+    // Moves the parked entries the window has reached into their slots and
+    // drops those whose vertex has since been queued lower or relaxed
+    private void unpark() {
+        int parked = overflowSize;
+        overflowSize = 0;
+        overflowMin = Long.MAX_VALUE;
+        for (int i = 0; i < parked; i++) {
+            int v = overflow[i];
+            long bucket = overflowBuckets[i];
+            if (queued.get(v) == bucket) {
+                append(bucket, v);
+            }
+        }
+    }
+
+    // Caller holds the lock or runs alone
+    private void append(long bucket, int v) {
+        if (bucket - current >= slotCount) {
+            if (overflowSize == overflow.length) {
+                overflow = Arrays.copyOf(overflow, overflowSize * 2);
+                overflowBuckets = Arrays.copyOf(overflowBuckets, overflowSize * 2);
+            }
+            overflow[overflowSize] = v;
+            overflowBuckets[overflowSize++] = bucket;
+            overflowMin = Math.min(overflowMin, bucket);
+            return;
+        }
+        int slot = (int) (bucket % slotCount);
+        if (slotSizes[slot] == slots[slot].length) {
+            slots[slot] = Arrays.copyOf(slots[slot], slotSizes[slot] * 2);
+        }
+        slots[slot][slotSizes[slot]++] = v;
+    }
+
+    // Publishes a task's staged entries: vertices to queue by bucket, and
+    // vertices settled in this bucket for its heavy pass
+    private synchronized void publish(int[] vertices, long[] buckets, int count, int[] done, int doneCount) {
+        for (int i = 0; i < count; i++) {
+            append(buckets[i], vertices[i]);
+        }
+        if (settledSize + doneCount > settled.length) {
+            settled = Arrays.copyOf(settled, Math.max(settled.length * 2, settledSize + doneCount));
+        }
+        System.arraycopy(done, 0, settled, settledSize, doneCount);
+        settledSize += doneCount;
+    }
+
+    // Relaxes the light or heavy edges of entries[start, end). In the light
+    // pass an entry counts only if the vertex is still queued in the current
+    // bucket, which also drops duplicates and entries it has since left.
+    private final class RelaxTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] entries;
+        private final int start;
+        private final int end;
+        private final boolean light;
+        private Stage stage;
+
+        RelaxTask(int[] entries, int start, int end, boolean light) {
+            this.entries = entries;
+            this.start = start;
+            this.end = end;
+            this.light = light;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start > CHUNK) {
+                int mid = (start + end) >>> 1;
+                invokeAll(new RelaxTask(entries, start, mid, light), new RelaxTask(entries, mid, end, light));
+                return;
+            }
+            stage = new Stage();
+            for (int i = start; i < end; i++) {
+                int u = entries[i];
+                if (light) {
+                    if (!queued.compareAndSet(u, current, -1)) {
+                        continue;
+                    }
+                    if (settledIn[u] != current) {
+                        settledIn[u] = current;
+                        stage.settle(u);
+                    }
+                }
+                int first = light ? g.firstEdge(u) : lightEnd[u];
+                int last = light ? lightEnd[u] : g.endEdge(u);
+                long du = distance.get(u);
+                if (last - first > EDGE_CHUNK) {
+                    new EdgeTask(du, first, last).invoke();
+                } else {
+                    stage.relax(du, first, last);
+                }
+            }
+            stage.flush();
+        }
+    }
+
+    private final class EdgeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final long du;
+        private final int start;
+        private final int end;
+
+        EdgeTask(long du, int start, int end) {
+            this.du = du;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start > EDGE_CHUNK) {
+                int mid = (start + end) >>> 1;
+                invokeAll(new EdgeTask(du, start, mid), new EdgeTask(du, mid, end));
+                return;
+            }
+            Stage stage = new Stage();
+            stage.relax(du, start, end);
+            stage.flush();
+        }
+    }
+
+    // Entries a task has produced, published in blocks so the lock is taken
+    // once per block rather than per vertex
+    private final class Stage {
+        private final int[] vertices = new int[256];
+        private final long[] buckets = new long[256];
+        private int count;
+        private final int[] done = new int[256];
+        private int doneCount;
+
+        void settle(int v) {
+            if (doneCount == done.length) {
+                flush();
+            }
+            done[doneCount++] = v;
+        }
+
+        void relax(long du, int first, int last) {
+            for (int e = first; e < last; e++) {
+                int v = targets[e];
+                long candidate = du + weights[e];
+                long old = distance.get(v);
+                while (candidate < old) {
+                    if (distance.compareAndSet(v, old, candidate)) {
+                        queue(v, candidate / delta);
+                        break;
+                    }
+                    old = distance.get(v);
+                }
+            }
+        }
+
+        // Queues v in bucket unless it already waits in that or a lower one
+        private void queue(int v, long bucket) {
+            long old = queued.get(v);
+            while (old == -1 || old > bucket) {
+                if (queued.compareAndSet(v, old, bucket)) {
+                    if (count == vertices.length) {
+                        flush();
+                    }
+                    vertices[count] = v;
+                    buckets[count++] = bucket;
+                    return;
+                }
+                old = queued.get(v);
+            }
+        }
+
+        void flush() {
+            if (count > 0 || doneCount > 0) {
+                publish(vertices, buckets, count, done, doneCount);
+                count = 0;
+                doneCount = 0;
+            }
+        }
+    }
+
+    // Copies g's rows into targets and weights, light edges first, and
+    // records each row's split point and the heaviest weight
+    private final class PartitionTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int start;
+        private final int end;
+        private long maxWeight;
+
+        PartitionTask(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start > CHUNK * 16) {
+                int mid = (start + end) >>> 1;
+                PartitionTask low = new PartitionTask(start, mid);
+                PartitionTask high = new PartitionTask(mid, end);
+                invokeAll(low, high);
+                maxWeight = Math.max(low.maxWeight, high.maxWeight);
+                return;
+            }
+            for (int u = start; u < end; u++) {
+                int front = g.firstEdge(u);
+                int back = g.endEdge(u);
+                for (int e = g.firstEdge(u); e < g.endEdge(u); e++) {
+                    long weight = g.getWeight(e);
+                    if (weight < 0) {
+                        throw new IllegalArgumentException("Delta-stepping does not support negative edge weights");
+                    }
+                    maxWeight = Math.max(maxWeight, weight);
+                    int slot = weight <= delta ? front++ : --back;
+                    targets[slot] = g.getTarget(e);
+                    weights[slot] = weight;
+                }
+                lightEnd[u] = front;
+            }
+        }
+    }
+
+    private static class ParentTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final CsrGraph reverse;
+        private final int source;
+        private final long[] distance;
+        private final int[] parent;
+        private final int start;
+        private final int end;
+        private int reached;
+        private int unresolved;
+
+        ParentTask(CsrGraph reverse, int source, long[] distance, int[] parent, int start, int end) {
+            this.reverse = reverse;
+            this.source = source;
+            this.distance = distance;
+            this.parent = parent;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start > CHUNK * 16) {
+                int mid = (start + end) >>> 1;
+                ParentTask low = new ParentTask(reverse, source, distance, parent, start, mid);
+                ParentTask high = new ParentTask(reverse, source, distance, parent, mid, end);
+                invokeAll(low, high);
+                reached = low.reached + high.reached;
+                unresolved = low.unresolved + high.unresolved;
+                return;
+            }
+            for (int v = start; v < end; v++) {
+                parent[v] = -1;
+                long dv = distance[v];
+                if (dv == ShortestPathResult.UNREACHABLE) {
+                    continue;
+                }
+                reached++;
+                if (v == source) {
+                    continue;
+                }
+                for (int e = reverse.firstEdge(v); e < reverse.endEdge(v); e++) {
+                    long weight = reverse.getWeight(e);
+                    if (weight > 0 && distance[reverse.getTarget(e)] == dv - weight) {
+                        parent[v] = reverse.getTarget(e);
+                        break;
+                    }
+                }
+                if (parent[v] == -1) {
+                    unresolved++;
+                }
+            }
+        }
+    }
+}
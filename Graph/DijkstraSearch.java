@@ -0,0 +1,48 @@
+import java.util.Arrays;
+
+// Heap-based Dijkstra over a CSR graph: O((V + E) log V) with a d-ary heap
+final class DijkstraSearch {
+    private DijkstraSearch() {
+    }
+
+    // Fills distance and parent from the source and returns the number of
+    // settled vertices. With target != -1 the search stops once the target is
+    // settled, and vertices still queued at that point are reset to unreachable.
+    static int run(CsrGraph g, int source, int target, long[] distance, int[] parent) {
+        Arrays.fill(distance, ShortestPathResult.UNREACHABLE);
+        Arrays.fill(parent, -1);
+        IndexedDaryHeap heap = new IndexedDaryHeap(g.getVertexCount());
+        distance[source] = 0;
+        heap.insertOrDecrease(source, 0);
+
+        int settled = 0;
+        while (!heap.isEmpty()) {
+            int u = heap.pollMin();
+            settled++;
+            if (u == target) {
+                break;
+            }
+            long du = distance[u];
+            for (int e = g.firstEdge(u); e < g.endEdge(u); e++) {
+                long weight = g.getWeight(e);
+                if (weight < 0) {
+                    throw new IllegalArgumentException("Dijkstra does not support negative edge weights");
+                }
+                int v = g.getTarget(e);
+                long candidate = du + weight;
+                if (candidate < distance[v]) {
+                    distance[v] = candidate;
+                    parent[v] = u;
+                    heap.insertOrDecrease(v, candidate);
+                }
+            }
+        }
+
+        for (int i = 0; i < heap.size(); i++) {
+            int v = heap.get(i);
+            distance[v] = ShortestPathResult.UNREACHABLE;
+            parent[v] = -1;
+        }
+        return settled;
+    }
+}
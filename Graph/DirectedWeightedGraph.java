@@ -2,397 +2,212 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
-public class DirectedWeightedGraph<T> {
+public class DirectedWeightedGraph<T> extends AbstractDirectedWeightedGraph<T> {
     private int vertices;
-    private List<List<Edge<T>>> adjList;
-    private boolean bothWays;
-    private Map<T, Integer> vertexToIndexMap; // New map to store vertex-index mapping
-
-    private class Edge<E> {
-        E destination;
+    private List<ArrayList<Edge>> adjList;
+    private volatile Map<T, Integer> vertexToIndexMap; // New map to store vertex-index mapping
+    private ToIntFunction<T> indexLookup; // Replaces the map when set, e.g. by a snapshot's stored index
+    private List<T> indexToVertex; // Reverse mapping, indexed by vertex index
+    private int edges;
+    private boolean frozen;
+
+    // The destination is resolved to its index once, when the edge is added
+    private static class Edge {
+        int destination;
         long weight;
 
-        public Edge(E source, E destination, long weight) {
+        public Edge(int destination, long weight) {
             this.destination = destination;
             this.weight = weight;
         }
     }
 
     public DirectedWeightedGraph(boolean bothWays) {
-        this.bothWays = bothWays;
+        super(bothWays);
         adjList = new ArrayList<>();
         vertexToIndexMap = new HashMap<>(); // Initialize the map
+        indexToVertex = new ArrayList<>();
     }
 
-    public void addEdge(T source, T destination, long weight) {
-        int sourceIndex = getIndex(source);
-        Edge<T> edge = new Edge<>(source, destination, weight);
-        if (bothWays) {
-            int destinationIndex = getIndex(destination);
-            Edge<T> edge2 = new Edge<>(destination, source, weight);
-            adjList.get(destinationIndex).add(edge2);
-        }
-        adjList.get(sourceIndex).add(edge);
-    }
-
-    public int getIndex(T vertex) {
-        return vertexToIndexMap.getOrDefault(vertex, -1); // Retrieve index from map
-    }
-
-    public void addVertex(T vertex) {
-        adjList.add(new ArrayList<>());
-        vertexToIndexMap.put(vertex, vertices++); // Add vertex-index mapping to map
+    // Frozen graph over a ready-made CSR view, for the bulk loaders and
+    // snapshots. The vertices are listed in index order and the list is used
+    // as is; the value-to-index map is built on the first lookup.
+    static <T> DirectedWeightedGraph<T> fromCsr(boolean bothWays, List<T> vertices, CsrGraph csr) {
+        return fromCsr(bothWays, vertices, null, csr);
     }
 
-    public void printGraph() {
-        for (int i = 0; i < vertices; i++) {
-            List<Edge<T>> list = adjList.get(i);
-            System.out.print("Vertex " + i + " is connected to: ");
-            for (int j = 0; j < list.size(); j++) {
-                System.out.print(list.get(j).destination + " (weight: " + list.get(j).weight + "), ");
-            }
-            System.out.println();
-        }
+    // As above, with lookups answered by indexLookup (-1 if absent) so the
+    // map is never built
+    static <T> DirectedWeightedGraph<T> fromCsr(boolean bothWays, List<T> vertices, ToIntFunction<T> indexLookup,
+            CsrGraph csr) {
+        DirectedWeightedGraph<T> g = new DirectedWeightedGraph<>(bothWays);
+        g.indexLookup = indexLookup;
+        g.vertexToIndexMap = null;
+        g.indexToVertex = vertices;
+        g.vertices = vertices.size();
+        g.edges = csr.getEdgeCount();
+        g.csr = csr;
+        g.adjList = null;
+        g.frozen = true;
+        return g;
     }
 
-    public void prim() {
-        int[] parent = new int[vertices];
-        long[] key = new long[vertices];
-        boolean[] mstSet = new boolean[vertices];
-
-        for (int i = 0; i < vertices; i++) {
-            key[i] = Integer.MAX_VALUE;
-            mstSet[i] = false;
-        }
-
-        key[0] = 0;
-        parent[0] = -1;
-
-        for (int i = 0; i < vertices - 1; i++) {
-            int u = minKey(key, mstSet);
-            mstSet[u] = true;
-
-            for (int j = 0; j < adjList.get(u).size(); j++) {
-                int v = getIndex(adjList.get(u).get(j).destination);
-                long weight = adjList.get(u).get(j).weight;
-                if (!mstSet[v] && weight < key[v]) {
-                    parent[v] = u;
-                    key[v] = weight;
-                }
-            }
+    public void addEdge(T source, T destination, long weight) {
+        checkMutable();
+        int sourceIndex = getIndex(source);
+        int destinationIndex = getIndex(destination);
+        if (sourceIndex == -1 || destinationIndex == -1) {
+            throw new IllegalArgumentException("Both vertices must be added before the edge");
         }
-
+        addIndexedEdge(sourceIndex, destinationIndex, weight);
     }
 
-    public int minKey(long[] key, boolean[] mstSet) {
-        long min = Integer.MAX_VALUE;
-        int minIndex = -1;
-
-        for (int i = 0; i < vertices; i++) {
-            if (!mstSet[i] && key[i] < min) {
-                min = key[i];
-                minIndex = i;
+    private void addIndexedEdge(int sourceIndex, int destinationIndex, long weight) {
+        if (bothWays) {
+            adjList.get(destinationIndex).add(new Edge(sourceIndex, weight));
+        }
+        adjList.get(sourceIndex).add(new Edge(destinationIndex, weight));
+        edges += bothWays ? 2 : 1;
+        invalidate();
+    }
+
+    // Adds a batch of edges at once. The stream may be parallel; vertices are
+    // looked up in parallel for large batches, runs of edges from one source
+    // grow its adjacency list once and the derived views are dropped once.
+    // If any vertex is missing nothing is added.
+    public void addEdges(Stream<WeightedEdge<T>> edges) {
+        checkMutable();
+        List<WeightedEdge<T>> batch = edges.collect(Collectors.toList());
+        Map<T, Integer> index = vertexIndex();
+        int[] sources = EdgeBatch.resolve(batch.size(), k -> index.getOrDefault(batch.get(k).getSource(), -1), true);
+        int[] destinations = EdgeBatch.resolve(batch.size(), k -> index.getOrDefault(batch.get(k).getDestination(), -1), true);
+        long[] weights = new long[batch.size()];
+        for (int k = 0; k < weights.length; k++) {
+            weights[k] = batch.get(k).getWeight();
+        }
+        addIndexedEdges(sources, destinations, weights);
+    }
+
+    // Batch of edges between vertex indices, skipping the hash lookups
+    public void addEdgesByIndex(int[] sources, int[] destinations, long[] weights) {
+        checkMutable();
+        EdgeBatch.checkLengths(sources.length, destinations.length, weights.length);
+        EdgeBatch.checkIndices(sources, vertices);
+        EdgeBatch.checkIndices(destinations, vertices);
+        addIndexedEdges(sources, destinations, weights);
+    }
+
+    private void addIndexedEdges(int[] sources, int[] destinations, long[] weights) {
+        for (int k = 0; k < sources.length;) {
+            int run = EdgeBatch.runLength(sources, k);
+            ArrayList<Edge> list = adjList.get(sources[k]);
+            if (run >= EdgeBatch.MIN_RESERVED_RUN) {
+                list.ensureCapacity(list.size() + run);
             }
-        }
-
-        return minIndex;
-    }
-
-    public void dijkstra() {
-        int[] parent = new int[vertices];
-        long[] distance = new long[vertices];
-        boolean[] visited = new boolean[vertices];
-
-        for (int i = 0; i < vertices; i++) {
-            distance[i] = Integer.MAX_VALUE;
-            visited[i] = false;
-        }
-
-        distance[0] = 0;
-        parent[0] = -1;
-
-        for (int i = 0; i < vertices - 1; i++) {
-            int u = minDistance(distance, visited);
-            visited[u] = true;
-
-            for (int j = 0; j < adjList.get(u).size(); j++) {
-                int v = getIndex(adjList.get(u).get(j).destination);
-                long weight = adjList.get(u).get(j).weight;
-                if (!visited[v] && distance[u] != Integer.MAX_VALUE && distance[u] + weight < distance[v]) {
-                    parent[v] = u;
-                    distance[v] = distance[u] + weight;
+            for (int end = k + run; k < end; k++) {
+                if (bothWays) {
+                    adjList.get(destinations[k]).add(new Edge(sources[k], weights[k]));
                 }
+                list.add(new Edge(destinations[k], weights[k]));
             }
         }
+        edges += (bothWays ? 2 : 1) * sources.length;
+        invalidate();
     }
 
-    public int minDistance(long[] distance, boolean[] visited) {
-        long min = Integer.MAX_VALUE;
-        int minIndex = -1;
-
-        for (int i = 0; i < vertices; i++) {
-            if (!visited[i] && distance[i] < min) {
-                min = distance[i];
-                minIndex = i;
-            }
-        }
-
-        return minIndex;
-    }
-
-    public void BFS() {
-        boolean[] visited = new boolean[vertices];
-        for (int i = 0; i < vertices; i++) {
-            visited[i] = false;
-        }
-
-        for (int i = 0; i < vertices; i++) {
-            if (!visited[i]) {
-                BFSUtil(i, visited);
-            }
-        }
-    }
-
-    public void BFSUtil(int vertex, boolean[] visited) {
-        List<Integer> queue = new ArrayList<>();
-        visited[vertex] = true;
-        queue.add(vertex);
-
-        while (!queue.isEmpty()) {
-            int v = queue.remove(0);
-            System.out.print(v + " ");
-
-            for (int i = 0; i < adjList.get(v).size(); i++) {
-                int u = getIndex(adjList.get(v).get(i).destination);
-                if (!visited[u]) {
-                    visited[u] = true;
-                    queue.add(u);
+    @Override
+    public int getIndex(T vertex) {
+        if (indexLookup != null) {
+            return indexLookup.applyAsInt(vertex);
+        }
+        return vertexIndex().getOrDefault(vertex, -1); // Retrieve index from map
+    }
+
+    private Map<T, Integer> vertexIndex() {
+        Map<T, Integer> map = vertexToIndexMap;
+        if (map == null) {
+            synchronized (this) {
+                map = vertexToIndexMap;
+                if (map == null) {
+                    map = new HashMap<>(vertices * 4 / 3 + 1);
+                    for (int i = 0; i < vertices; i++) {
+                        map.put(indexToVertex.get(i), i);
+                    }
+                    vertexToIndexMap = map;
                 }
             }
         }
+        return map;
     }
 
-    public void DFS() {
-        boolean[] visited = new boolean[vertices];
-        for (int i = 0; i < vertices; i++) {
-            visited[i] = false;
-        }
-
-        for (int i = 0; i < vertices; i++) {
-            if (!visited[i]) {
-                DFSUtil(i, visited);
-            }
-        }
-    }
-
-    public void DFSUtil(int vertex, boolean[] visited) {
-        visited[vertex] = true;
-        System.out.print(vertex + " ");
-
-        for (int i = 0; i < adjList.get(vertex).size(); i++) {
-            int u = getIndex(adjList.get(vertex).get(i).destination);
-            if (!visited[u]) {
-                DFSUtil(u, visited);
-            }
-        }
+    public void addVertex(T vertex) {
+        checkMutable();
+        adjList.add(new ArrayList<>());
+        vertexToIndexMap.put(vertex, vertices++); // Add vertex-index mapping to map
+        indexToVertex.add(vertex);
+        invalidate();
     }
 
-    public void isEulerian() {
-        int odd = 0;
-        for (int i = 0; i < vertices; i++) {
-            if (adjList.get(i).size() % 2 != 0) {
-                odd++;
-            }
-        }
-
-        if (odd == 0) {
-            System.out.println("Graph is Eulerian");
-        } else if (odd == 2) {
-            System.out.println("Graph is Semi-Eulerian");
-        } else {
-            System.out.println("Graph is not Eulerian");
+    private void checkMutable() {
+        if (frozen) {
+            throw new IllegalStateException("Cannot modify a frozen graph");
         }
     }
 
-    public void isHamiltonian() {
-        boolean[] visited = new boolean[vertices];
+    @Override
+    CsrGraph buildCsr() {
+        int[] offsets = new int[vertices + 1];
+        int[] targets = new int[edges];
+        long[] weights = new long[edges];
+        int e = 0;
         for (int i = 0; i < vertices; i++) {
-            visited[i] = false;
-        }
-
-        if (isHamiltonianUtil(0, visited)) {
-            System.out.println("Graph is Hamiltonian");
-        } else {
-            System.out.println("Graph is not Hamiltonian");
-        }
-    }
-
-    public boolean isHamiltonianUtil(int vertex, boolean[] visited) {
-        if (vertex == vertices - 1) {
-            return true;
-        }
-
-        visited[vertex] = true;
-
-        for (int i = 0; i < adjList.get(vertex).size(); i++) {
-            int u = getIndex(adjList.get(vertex).get(i).destination);
-            if (!visited[u]) {
-                if (isHamiltonianUtil(u, visited)) {
-                    return true;
-                }
+            offsets[i] = e;
+            for (Edge edge : adjList.get(i)) {
+                targets[e] = edge.destination;
+                weights[e] = edge.weight;
+                e++;
             }
         }
-
-        visited[vertex] = false;
-        return false;
+        offsets[vertices] = e;
+        return new ArrayCsrGraph(offsets, targets, weights);
     }
 
-    public void isBipartite() {
-        int[] color = new int[vertices];
-        for (int i = 0; i < vertices; i++) {
-            color[i] = -1;
-        }
-
-        for (int i = 0; i < vertices; i++) {
-            if (color[i] == -1) {
-                if (!isBipartiteUtil(i, color)) {
-                    System.out.println("Graph is not Bipartite");
-                    return;
-                }
-            }
-        }
-
-        System.out.println("Graph is Bipartite");
+    // Builds the CSR view and releases the per-edge objects. The graph is
+    // read-only afterwards: addVertex and addEdge throw IllegalStateException.
+    public void freeze() {
+        toCsr();
+        adjList = null;
+        frozen = true;
     }
 
-    public boolean isBipartiteUtil(int vertex, int[] color) {
-        color[vertex] = 1;
-
-        List<Integer> queue = new ArrayList<>();
-        queue.add(vertex);
-
-        while (!queue.isEmpty()) {
-            int v = queue.remove(0);
-
-            for (int i = 0; i < adjList.get(v).size(); i++) {
-                int u = getIndex(adjList.get(v).get(i).destination);
-                if (color[u] == -1) {
-                    color[u] = 1 - color[v];
-                    queue.add(u);
-                } else if (color[u] == color[v]) {
-                    return false;
-                }
-            }
-        }
-
-        return true;
+    public boolean isFrozen() {
+        return frozen;
     }
 
-    public void isPlanar() {
-        int V = vertices;
-        int E = 0;
-        for (int i = 0; i < V; i++) {
-            E += adjList.get(i).size();
-        }
-        E /= 2;
-
-        int F = 2 - V + E;
-
-        if (F == 0) {
-            System.out.println("Graph is Planar");
-        } else {
-            System.out.println("Graph is not Planar");
-        }
+    @Override
+    public int getVertexCount() {
+        return vertices;
     }
 
-    public void isBiconnected() {
-        int[] disc = new int[vertices];
-        int[] low = new int[vertices];
-        int[] parent = new int[vertices];
-        boolean[] visited = new boolean[vertices];
-        boolean[] ap = new boolean[vertices];
-
-        for (int i = 0; i < vertices; i++) {
-            parent[i] = -1;
-            visited[i] = false;
-            ap[i] = false;
-        }
-
-        for (int i = 0; i < vertices; i++) {
-            if (!visited[i]) {
-                isBiconnectedUtil(i, visited, disc, low, parent, ap);
-            }
-        }
-
-        for (int i = 0; i < vertices; i++) {
-            if (ap[i]) {
-                System.out.println(i + " ");
-            }
-        }
+    // Index-based traversal: the i-th out-edge of a vertex, without any hashing
+    public int getOutDegree(int vertex) {
+        return frozen ? csr.getOutDegree(vertex) : adjList.get(vertex).size();
     }
 
-    public void isBiconnectedUtil(int vertex, boolean[] visited, int[] disc, int[] low, int[] parent, boolean[] ap) {
-        int children = 0;
-        visited[vertex] = true;
-        int time = 0;
-        disc[vertex] = low[vertex] = ++time;
-
-        for (int i = 0; i < adjList.get(vertex).size(); i++) {
-            int u = getIndex(adjList.get(vertex).get(i).destination);
-            if (!visited[u]) {
-                children++;
-                parent[u] = vertex;
-                isBiconnectedUtil(u, visited, disc, low, parent, ap);
-
-                low[vertex] = Math.min(low[vertex], low[u]);
-
-                if (parent[vertex] == -1 && children > 1) {
-                    ap[vertex] = true;
-                }
-
-                if (parent[vertex] != -1 && low[u] >= disc[vertex]) {
-                    ap[vertex] = true;
-                }
-            } else if (u != parent[vertex]) {
-                low[vertex] = Math.min(low[vertex], disc[u]);
-            }
-        }
+    public int getNeighbor(int vertex, int i) {
+        return frozen ? csr.getTarget(csr.firstEdge(vertex) + i) : adjList.get(vertex).get(i).destination;
     }
 
-    public void isStronglyConnected() {
-        boolean[] visited = new boolean[vertices];
-        for (int i = 0; i < vertices; i++) {
-            visited[i] = false;
-        }
-
-        DFSUtil(0, visited);
-
-        for (int i = 0; i < vertices; i++) {
-            if (!visited[i]) {
-                System.out.println("Graph is not Strongly Connected");
-                return;
-            }
-        }
-
-        DirectedWeightedGraph<T> g = getTranspose();
-        for (int i = 0; i < vertices; i++) {
-            visited[i] = false;
-        }
-
-        g.DFSUtil(0, visited);
-
-        for (int i = 0; i < vertices; i++) {
-            if (!visited[i]) {
-                System.out.println("Graph is not Strongly Connected");
-                return;
-            }
-        }
-
-        System.out.println("Graph is Strongly Connected");
+    public long getNeighborWeight(int vertex, int i) {
+        return frozen ? csr.getWeight(csr.firstEdge(vertex) + i) : adjList.get(vertex).get(i).weight;
     }
 
     public DirectedWeightedGraph<T> getTranspose() {
+        CsrGraph csr = toCsr();
         DirectedWeightedGraph<T> g = new DirectedWeightedGraph<>(bothWays);
 
         for (int i = 0; i < vertices; i++) {
@@ -400,160 +215,20 @@ public class DirectedWeightedGraph<T> {
         }
 
         for (int i = 0; i < vertices; i++) {
-            for (int j = 0; j < adjList.get(i).size(); j++) {
-                int u = getIndex(adjList.get(i).get(j).destination);
-                long weight = adjList.get(i).get(j).weight;
-                g.addEdge(getVertex(u), getVertex(i), weight);
+            for (int e = csr.firstEdge(i); e < csr.endEdge(i); e++) {
+                g.addIndexedEdge(csr.getTarget(e), i, csr.getWeight(e));
             }
         }
 
         return g;
     }
 
+    @Override
     public T getVertex(int index) {
-        for (Map.Entry<T, Integer> entry : vertexToIndexMap.entrySet()) {
-            if (entry.getValue() == index) {
-                return entry.getKey();
-            }
-        }
-        return null;
-    }
-
-    public void hamiltonianCycle() {
-        int[] path = new int[vertices];
-        for (int i = 0; i < vertices; i++) {
-            path[i] = -1;
-        }
-
-        path[0] = 0;
-
-        if (!hamiltonianCycleUtil(path, 1)) {
-            System.out.println("No Hamiltonian Cycle");
-        } else {
-            printPath(path);
-        }
-    }
-
-    public boolean hamiltonianCycleUtil(int[] path, int pos) {
-        if (pos == vertices) {
-            if (adjList.get(path[pos - 1]).contains(getVertex(path[0]))) {
-                return true;
-            } else {
-                return false;
-            }
-        }
-
-        for (int v = 1; v < vertices; v++) {
-            if (isSafe(v, path, pos)) {
-                path[pos] = v;
-
-                if (hamiltonianCycleUtil(path, pos + 1)) {
-                    return true;
-                }
-
-                path[pos] = -1;
-            }
-        }
-
-        return false;
-    }
-
-    public boolean isSafe(int v, int[] path, int pos) {
-        if (!adjList.get(path[pos - 1]).contains(getVertex(v))) {
-            return false;
-        }
-
-        for (int i = 0; i < pos; i++) {
-            if (path[i] == v) {
-                return false;
-            }
-        }
-
-        return true;
-    }
-
-    public void printPath(int[] path) {
-        for (int i = 0; i < vertices; i++) {
-            System.out.print(path[i] + " ");
-        }
-        System.out.println(path[0]);
-    }
-
-    public void hamiltonianPath() {
-        int[] path = new int[vertices];
-        for (int i = 0; i < vertices; i++) {
-            path[i] = -1;
-        }
-
-        path[0] = 0;
-
-        if (!hamiltonianPathUtil(path, 1)) {
-            System.out.println("No Hamiltonian Path");
-        } else {
-            printPath(path);
-        }
-    }
-
-    public boolean hamiltonianPathUtil(int[] path, int pos) {
-        if (pos == vertices) {
-            return true;
-        }
-
-        for (int v = 1; v < vertices; v++) {
-            if (isSafe(v, path, pos)) {
-                path[pos] = v;
-
-                if (hamiltonianPathUtil(path, pos + 1)) {
-                    return true;
-                }
-
-                path[pos] = -1;
-            }
-        }
-
-        return false;
-    }
-
-    public void topologicalSort() {
-        int[] indegree = new int[vertices];
-
-        for (int i = 0; i < vertices; i++) {
-            for (int j = 0; j < adjList.get(i).size(); j++) {
-                int u = getIndex(adjList.get(i).get(j).destination);
-                indegree[u]++;
-            }
-        }
-
-        List<Integer> queue = new ArrayList<>();
-        for (int i = 0; i < vertices; i++) {
-            if (indegree[i] == 0) {
-                queue.add(i);
-            }
-        }
-
-        int count = 0;
-        List<Integer> topOrder = new ArrayList<>();
-        while (!queue.isEmpty()) {
-            int u = queue.remove(0);
-            topOrder.add(u);
-
-            for (int i = 0; i < adjList.get(u).size(); i++) {
-                int v = getIndex(adjList.get(u).get(i).destination);
-                if (--indegree[v] == 0) {
-                    queue.add(v);
-                }
-            }
-
-            count++;
-        }
-
-        if (count != vertices) {
-            System.out.println("Graph contains cycle");
-        } else {
-            for (int i = 0; i < topOrder.size(); i++) {
-                System.out.print(topOrder.get(i) + " ");
-            }
+        if (index < 0 || index >= vertices) {
+            return null;
         }
+        return indexToVertex.get(index);
     }
 
     public static void main(String[] args) {
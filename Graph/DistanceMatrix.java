@@ -0,0 +1,48 @@
+// Shortest-path distances between every ordered pair of vertices, stored as
+// one row-major long[] of V * V entries
+public class DistanceMatrix<T> {
+    private final AbstractDirectedWeightedGraph<T> graph;
+    private final int n;
+    private final long[] distance;
+
+    DistanceMatrix(AbstractDirectedWeightedGraph<T> graph, int n, long[] distance) {
+        this.graph = graph;
+        this.n = n;
+        this.distance = distance;
+    }
+
+    public int getVertexCount() {
+        return n;
+    }
+
+    public boolean hasPath(T source, T destination) {
+        return getDistance(source, destination) != ShortestPathResult.UNREACHABLE;
+    }
+
+    // ShortestPathResult.UNREACHABLE if there is no path
+    public long getDistance(T source, T destination) {
+        return getDistanceByIndex(indexOf(source), indexOf(destination));
+    }
+
+    public long getDistanceByIndex(int source, int destination) {
+        if (source < 0 || source >= n || destination < 0 || destination >= n) {
+            throw new IndexOutOfBoundsException("Vertex index out of range: " + source + ", " + destination);
+        }
+        return distance[source * n + destination];
+    }
+
+    // Copy of one row: the distances from the source to every vertex index
+    public long[] getRowByIndex(int source) {
+        long[] row = new long[n];
+        System.arraycopy(distance, source * n, row, 0, n);
+        return row;
+    }
+
+    private int indexOf(T vertex) {
+        int index = graph.getIndex(vertex);
+        if (index == -1) {
+            throw new IllegalArgumentException("Vertex not found: " + vertex);
+        }
+        return index;
+    }
+}
@@ -0,0 +1,91 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntUnaryOperator;
+
+// Shared steps of the batched addEdges methods: argument checks, grouping
+// by source and the translation of vertex values to indices, which dominates
+// the cost of a batch and is split across cores for large ones
+final class EdgeBatch {
+    static final int PARALLEL_THRESHOLD = 1 << 16;
+    static final int MIN_RESERVED_RUN = 8;
+    private static final int CHUNK = 4096;
+
+    private EdgeBatch() {
+    }
+
+    static void checkLengths(int sources, int destinations, int weights) {
+        if (sources != destinations || sources != weights) {
+            throw new IllegalArgumentException("Edge arrays differ in length: "
+                    + sources + ", " + destinations + ", " + weights);
+        }
+    }
+
+    static void checkIndices(int[] indices, int vertices) {
+        for (int index : indices) {
+            if (index < 0 || index >= vertices) {
+                throw new IndexOutOfBoundsException("Vertex index " + index + " out of range");
+            }
+        }
+    }
+
+    // Index of the k-th value for every k below count. Nothing is written to
+    // the graph if a value is missing, so a failed batch leaves it unchanged.
+    static int[] resolve(int count, IntUnaryOperator indexOf, boolean parallel) {
+        int[] indices = new int[count];
+        if (parallel && count >= PARALLEL_THRESHOLD) {
+            ForkJoinPool.commonPool().invoke(new ResolveTask(indices, indexOf, 0, count));
+        } else {
+            for (int k = 0; k < count; k++) {
+                indices[k] = indexOf.applyAsInt(k);
+            }
+        }
+        for (int index : indices) {
+            if (index == -1) {
+                throw new IllegalArgumentException("Both vertices must be added before the edge");
+            }
+        }
+        return indices;
+    }
+
+    // Number of edges from k on that share the source of edge k. Batches
+    // arrive grouped by source more often than not; a run of at least
+    // MIN_RESERVED_RUN edges has its adjacency grown once up front. Counting
+    // the edges per source of an ungrouped batch cost more than the growth
+    // it saved, so scattered sources grow geometrically as usual.
+    static int runLength(int[] sources, int k) {
+        int end = k + 1;
+        while (end < sources.length && sources[end] == sources[k]) {
+            end++;
+        }
+        return end - k;
+    }
+
+    private static class ResolveTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] indices;
+        private final IntUnaryOperator indexOf;
+        private final int start;
+        private final int end;
+
+        ResolveTask(int[] indices, IntUnaryOperator indexOf, int start, int end) {
+            this.indices = indices;
+            this.indexOf = indexOf;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start > CHUNK) {
+                int mid = (start + end) >>> 1;
+                invokeAll(new ResolveTask(indices, indexOf, start, mid),
+                        new ResolveTask(indices, indexOf, mid, end));
+                return;
+            }
+            for (int k = start; k < end; k++) {
+                indices[k] = indexOf.applyAsInt(k);
+            }
+        }
+    }
+}
@@ -0,0 +1,264 @@
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Bulk loader for edge-list files, memory-mapped through FileChannel.map.
+// The file is read twice: the first pass numbers the vertices and counts
+// the out-degrees, the second fills CSR arrays that were allocated exactly
+// once. The result is a frozen graph whose vertices are the ids in the file.
+//
+// Text files hold one "source destination [weight]" line per edge, with ids
+// and weights as decimal longs separated by spaces or tabs. The weight
+// defaults to 1; lines starting with '#' or '%' are comments. Binary files
+// hold 24-byte records of three little-endian longs: source, destination, weight.
+public final class EdgeListLoader {
+    private static final long TEXT_WINDOW = 1L << 30;
+    private static final int RECORD_BYTES = 24;
+    private static final long BINARY_WINDOW = (Integer.MAX_VALUE / RECORD_BYTES) * (long) RECORD_BYTES;
+
+    private EdgeListLoader() {
+    }
+
+    public static DirectedWeightedGraph<Long> loadText(Path file, boolean bothWays) throws IOException {
+        return load(file, bothWays, false);
+    }
+
+    public static DirectedWeightedGraph<Long> loadBinary(Path file, boolean bothWays) throws IOException {
+        return load(file, bothWays, true);
+    }
+
+    private interface EdgeSink {
+        void accept(long source, long destination, long weight) throws IOException;
+    }
+
+    private static DirectedWeightedGraph<Long> load(Path file, boolean bothWays, boolean binary) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            DegreeCounter counter = new DegreeCounter(bothWays);
+            scan(channel, binary, counter);
+
+            int n = counter.vertices;
+            int[] offsets = new int[n + 1];
+            for (int v = 0; v < n; v++) {
+                offsets[v + 1] = offsets[v] + counter.degree[v];
+            }
+            EdgeFiller filler = new EdgeFiller(counter.ids, offsets, bothWays);
+            scan(channel, binary, filler);
+
+            List<Long> vertices = new ArrayList<>(n);
+            for (int v = 0; v < n; v++) {
+                vertices.add(counter.idOf[v]);
+            }
+            CsrGraph csr = new ArrayCsrGraph(offsets, filler.targets, filler.weights);
+            return DirectedWeightedGraph.fromCsr(bothWays, vertices, csr);
+        }
+    }
+
+    // First pass: assigns indices in order of first appearance and counts degrees
+    private static class DegreeCounter implements EdgeSink {
+        private final boolean bothWays;
+        private final LongIntHashMap ids = new LongIntHashMap(1 << 16);
+        private long[] idOf = new long[1 << 16];
+        private int[] degree = new int[1 << 16];
+        private int vertices;
+        private long edges;
+
+        DegreeCounter(boolean bothWays) {
+            this.bothWays = bothWays;
+        }
+
+        @Override
+        public void accept(long source, long destination, long weight) throws IOException {
+            int u = index(source);
+            int v = index(destination);
+            degree[u]++;
+            edges++;
+            if (bothWays) {
+                degree[v]++;
+                edges++;
+            }
+            if (edges > Integer.MAX_VALUE - 8) {
+                throw new IOException("Edge list holds more edges than a CSR graph can index");
+            }
+        }
+
+        private int index(long id) {
+            int index = ids.putIfAbsent(id, vertices);
+            if (index == vertices) {
+                if (vertices == idOf.length) {
+                    idOf = Arrays.copyOf(idOf, vertices * 2);
+                    degree = Arrays.copyOf(degree, vertices * 2);
+                }
+                idOf[vertices++] = id;
+            }
+            return index;
+        }
+    }
+
+    // Second pass: writes every edge into its final CSR slot
+    private static class EdgeFiller implements EdgeSink {
+        private final LongIntHashMap ids;
+        private final boolean bothWays;
+        private final int[] next;
+        private final int[] targets;
+        private final long[] weights;
+
+        EdgeFiller(LongIntHashMap ids, int[] offsets, boolean bothWays) {
+            int n = offsets.length - 1;
+            this.ids = ids;
+            this.bothWays = bothWays;
+            this.next = Arrays.copyOf(offsets, n);
+            this.targets = new int[offsets[n]];
+            this.weights = new long[offsets[n]];
+        }
+
+        @Override
+        public void accept(long source, long destination, long weight) throws IOException {
+            int u = ids.get(source);
+            int v = ids.get(destination);
+            if (u == -1 || v == -1) {
+                throw new IOException("Edge list changed between the two loading passes");
+            }
+            targets[next[u]] = v;
+            weights[next[u]++] = weight;
+            if (bothWays) {
+                targets[next[v]] = u;
+                weights[next[v]++] = weight;
+            }
+        }
+    }
+
+    private static void scan(FileChannel channel, boolean binary, EdgeSink sink) throws IOException {
+        if (binary) {
+            scanBinary(channel, sink);
+        } else {
+            scanText(channel, sink);
+        }
+    }
+
+    private static void scanBinary(FileChannel channel, EdgeSink sink) throws IOException {
+        long size = channel.size();
+        if (size % RECORD_BYTES != 0) {
+            throw new IOException("Binary edge list size is not a multiple of " + RECORD_BYTES + " bytes");
+        }
+        for (long position = 0; position < size; position += BINARY_WINDOW) {
+            long length = Math.min(BINARY_WINDOW, size - position);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            for (int offset = 0; offset < length; offset += RECORD_BYTES) {
+                sink.accept(buffer.getLong(offset), buffer.getLong(offset + 8), buffer.getLong(offset + 16));
+            }
+        }
+    }
+
+    // Maps the file in windows cut at a line break, so no line spans two windows
+    private static void scanText(FileChannel channel, EdgeSink sink) throws IOException {
+        long size = channel.size();
+        TextTokenizer tokenizer = new TextTokenizer();
+        long position = 0;
+        while (position < size) {
+            long length = Math.min(TEXT_WINDOW, size - position);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            int limit = (int) length;
+            if (position + length < size) {
+                while (limit > 0 && buffer.get(limit - 1) != '\n') {
+                    limit--;
+                }
+                if (limit == 0) {
+                    throw new IOException("Line longer than " + TEXT_WINDOW + " bytes at byte " + position);
+                }
+            }
+            tokenizer.parse(buffer, limit, position, sink);
+            position += limit;
+        }
+    }
+
+    // Reads numbers straight from the mapped bytes; no Strings or boxing
+    private static class TextTokenizer {
+        private MappedByteBuffer buffer;
+        private int pos;
+        private int limit;
+        private long base;
+
+        void parse(MappedByteBuffer buffer, int limit, long base, EdgeSink sink) throws IOException {
+            this.buffer = buffer;
+            this.pos = 0;
+            this.limit = limit;
+            this.base = base;
+            while (pos < limit) {
+                skipBlanks();
+                if (pos == limit) {
+                    break;
+                }
+                byte b = buffer.get(pos);
+                if (b == '\n') {
+                    pos++;
+                    continue;
+                }
+                if (b == '#' || b == '%') {
+                    skipLine();
+                    continue;
+                }
+                long source = nextLong();
+                skipBlanks();
+                long destination = nextLong();
+                skipBlanks();
+                long weight = 1;
+                if (pos < limit && buffer.get(pos) != '\n') {
+                    weight = nextLong();
+                }
+                sink.accept(source, destination, weight);
+                skipLine();
+            }
+        }
+
+        private void skipBlanks() {
+            while (pos < limit) {
+                byte b = buffer.get(pos);
+                if (b != ' ' && b != '\t' && b != '\r') {
+                    return;
+                }
+                pos++;
+            }
+        }
+
+        private void skipLine() {
+            while (pos < limit && buffer.get(pos) != '\n') {
+                pos++;
+            }
+            pos++;
+        }
+
+        private long nextLong() throws IOException {
+            boolean negative = false;
+            if (pos < limit && buffer.get(pos) == '-') {
+                negative = true;
+                pos++;
+            }
+            int start = pos;
+            // Accumulates negatively, like Long.parseLong, so Long.MIN_VALUE fits
+            long bound = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+            long value = 0;
+            while (pos < limit) {
+                int digit = buffer.get(pos) - '0';
+                if (digit < 0 || digit > 9) {
+                    break;
+                }
+                if (value < (bound + digit) / 10) {
+                    throw new IOException("Number out of range at byte " + (base + start));
+                }
+                value = value * 10 - digit;
+                pos++;
+            }
+            if (pos == start) {
+                throw new IOException("Expected a number at byte " + (base + pos));
+            }
+            return negative ? value : -value;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Random;
+
+// Rough wall-clock timings for DirectedWeightedGraph on generated graphs.
+// Run with: java -Xmx8g GraphBenchmark
+public class GraphBenchmark {
+    private static final int EDGES_PER_VERTEX = 4;
+
+    // The traversal methods print every vertex; keep that out of the timings
+    static final PrintStream CONSOLE = System.out;
+    static final PrintStream DISCARD = new PrintStream(OutputStream.nullOutputStream());
+
+    // A directed ring (so the graph is strongly connected) plus random chords
+    static DirectedWeightedGraph<Integer> randomGraph(int vertices, long seed) {
+        Random random = new Random(seed);
+        DirectedWeightedGraph<Integer> g = new DirectedWeightedGraph<>(false);
+        for (int i = 0; i < vertices; i++) {
+            g.addVertex(i);
+        }
+        for (int i = 0; i < vertices; i++) {
+            g.addEdge(i, (i + 1) % vertices, 1 + random.nextInt(100));
+            for (int j = 1; j < EDGES_PER_VERTEX; j++) {
+                g.addEdge(i, random.nextInt(vertices), 1 + random.nextInt(100));
+            }
+        }
+        return g;
+    }
+
+    static long millisSince(long start) {
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    static void benchmarkTranspose() {
+        System.out.println("getTranspose / isStronglyConnected");
+        for (int vertices = 125_000; vertices <= 1_000_000; vertices *= 2) {
+            DirectedWeightedGraph<Integer> g = randomGraph(vertices, 42);
+
+            long start = System.nanoTime();
+            g.getTranspose();
+            long transpose = millisSince(start);
+
+            System.setOut(DISCARD);
+            start = System.nanoTime();
+            g.isStronglyConnected();
+            long connected = millisSince(start);
+            System.setOut(CONSOLE);
+
+            System.out.println("  V = " + vertices + ", E = " + (long) vertices * EDGES_PER_VERTEX
+                    + ": getTranspose " + transpose + " ms, isStronglyConnected " + connected + " ms");
+        }
+    }
+
+    // Traversed edges per second of each BFS mode from vertex 0, best of a few runs
+    static void benchmarkBfs() {
+        System.out.println("bfs throughput (" + Runtime.getRuntime().availableProcessors() + " cores)");
+        for (int vertices = 1_000_000; vertices <= 4_000_000; vertices *= 2) {
+            DirectedWeightedGraph<Integer> g = randomGraph(vertices, 42);
+            g.freeze();
+            long edges = g.toCsr().getEdgeCount();
+            StringBuilder line = new StringBuilder("  V = " + vertices + ", E = " + edges + ":");
+            for (DirectedWeightedGraph.BfsMode mode : DirectedWeightedGraph.BfsMode.values()) {
+                long best = Long.MAX_VALUE;
+                for (int run = 0; run < 5; run++) {
+                    long start = System.nanoTime();
+                    g.bfs(0, mode);
+                    best = Math.min(best, System.nanoTime() - start);
+                }
+                line.append(" ").append(mode).append(" ").append(edges * 1000 / Math.max(best, 1)).append(" Medges/s");
+            }
+            System.out.println(line);
+        }
+    }
+
+    public static void main(String[] args) {
+        benchmarkTranspose();
+        benchmarkBfs();
+    }
+}
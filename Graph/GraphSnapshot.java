@@ -0,0 +1,317 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+// Compact binary snapshot of a graph that opens without deserialization:
+// open() memory-maps the file and the algorithms read the CSR sections in
+// place, so the page cache is shared by every process that opens it. Vertex
+// lookups by value probe a hash index stored in the file and compare encoded
+// bytes in place, so nothing is decoded or copied onto the heap up front.
+//
+// Layout, little-endian, every section 8-byte aligned:
+//   header      magic "DWGRAPH1", version, flags (bit 0 = bothWays),
+//               vertex count, edge count, the position of each section,
+//               then the index slot count
+//   offsets     int[V + 1]
+//   targets     int[E]
+//   weights     long[E]
+//   dictionary  long[V + 1] byte offsets into the data section
+//   data        the encoded vertex values in index order
+//   index       int[slots] open-addressing table of vertex indices, -1 for
+//               an empty slot, keyed by a hash of the encoded value
+public final class GraphSnapshot {
+    private static final byte[] MAGIC = "DWGRAPH1".getBytes(StandardCharsets.US_ASCII);
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 80;
+    private static final int BUFFER_BYTES = 1 << 20;
+    private static final int MAX_SLOTS = 1 << 30;
+
+    private GraphSnapshot() {
+    }
+
+    public static <T> void write(AbstractDirectedWeightedGraph<T> graph, Path file, VertexCodec<T> codec) throws IOException {
+        CsrGraph g = graph.toCsr();
+        int n = g.getVertexCount();
+        int m = g.getEdgeCount();
+        long offsetsPosition = HEADER_BYTES;
+        long targetsPosition = align(offsetsPosition + 4L * (n + 1));
+        long weightsPosition = align(targetsPosition + 4L * m);
+        long dictionaryPosition = align(weightsPosition + 8L * m);
+        long dataPosition = dictionaryPosition + 8L * (n + 1);
+        if (n >= MAX_SLOTS / 2) {
+            throw new IllegalArgumentException("Too many vertices for a snapshot: " + n);
+        }
+        // At most half full, so probe runs stay short
+        int slots = Integer.highestOneBit(Math.max(2 * n - 1, 1)) << 1;
+        int[] index = new int[slots];
+        Arrays.fill(index, -1);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            Output out = new Output(channel);
+            out.putBytes(MAGIC);
+            out.putInt(VERSION);
+            out.putInt(graph.isBothWays() ? 1 : 0);
+            out.putInt(n);
+            out.putInt(m);
+            out.putLong(offsetsPosition);
+            out.putLong(targetsPosition);
+            out.putLong(weightsPosition);
+            out.putLong(dictionaryPosition);
+            out.putLong(dataPosition);
+            out.putLong(0); // index position, patched in below
+            out.putInt(slots);
+            out.putInt(0);
+
+            for (int v = 0; v < n; v++) {
+                out.putInt(g.firstEdge(v));
+            }
+            out.putInt(m);
+            out.padTo(targetsPosition);
+            for (int e = 0; e < m; e++) {
+                out.putInt(g.getTarget(e));
+            }
+            out.padTo(weightsPosition);
+            for (int e = 0; e < m; e++) {
+                out.putLong(g.getWeight(e));
+            }
+            out.padTo(dictionaryPosition);
+
+            // The byte offsets come first, so each vertex is encoded twice
+            // rather than held in memory between the two sections
+            long offset = 0;
+            for (int v = 0; v < n; v++) {
+                byte[] bytes = codec.encode(graph.getVertex(v));
+                out.putLong(offset);
+                offset += bytes.length;
+                int slot = (int) hash(bytes) & (slots - 1);
+                while (index[slot] != -1) {
+                    slot = (slot + 1) & (slots - 1);
+                }
+                index[slot] = v;
+            }
+            out.putLong(offset);
+            for (int v = 0; v < n; v++) {
+                out.putBytes(codec.encode(graph.getVertex(v)));
+            }
+            long indexPosition = align(dataPosition + offset);
+            out.padTo(indexPosition);
+            for (int slot : index) {
+                out.putInt(slot);
+            }
+            out.flush();
+            ByteBuffer patch = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN).putLong(0, indexPosition);
+            channel.write(patch, 64);
+        }
+    }
+
+    // FNV-1a over the encoded value with a final mix, so the index does not
+    // depend on the vertex class's hashCode
+    private static long hash(byte[] bytes) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : bytes) {
+            h = (h ^ (b & 0xff)) * 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        return h ^ (h >>> 33);
+    }
+
+    // Opens a snapshot as a frozen graph backed by the mapped file. Vertex
+    // values are decoded on access and looked up through the stored index.
+    // The header and the section bounds are checked here; the contents of
+    // the sections are trusted.
+    public static <T> DirectedWeightedGraph<T> open(Path file, VertexCodec<T> codec) throws IOException {
+        MappedFile mapped = MappedFile.map(file);
+        if (mapped.size() < HEADER_BYTES) {
+            throw new IOException("Not a graph snapshot: " + file);
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (mapped.getByte(i) != MAGIC[i]) {
+                throw new IOException("Not a graph snapshot: " + file);
+            }
+        }
+        if (mapped.getInt(8) != VERSION) {
+            throw new IOException("Unsupported snapshot version " + mapped.getInt(8));
+        }
+        boolean bothWays = (mapped.getInt(12) & 1) != 0;
+        int n = mapped.getInt(16);
+        int m = mapped.getInt(20);
+        long offsetsPosition = mapped.getLong(24);
+        long targetsPosition = mapped.getLong(32);
+        long weightsPosition = mapped.getLong(40);
+        long dictionaryPosition = mapped.getLong(48);
+        long dataPosition = mapped.getLong(56);
+        long indexPosition = mapped.getLong(64);
+        int slots = mapped.getInt(72);
+        if (n < 0 || m < 0) {
+            throw new IOException("Corrupt graph snapshot, negative counts: " + file);
+        }
+        if (Integer.bitCount(slots) != 1 || slots <= n) {
+            throw new IOException("Corrupt graph snapshot, bad index size: " + file);
+        }
+        checkSection(mapped, file, offsetsPosition, 4L * (n + 1));
+        checkSection(mapped, file, targetsPosition, 4L * m);
+        checkSection(mapped, file, weightsPosition, 8L * m);
+        checkSection(mapped, file, dictionaryPosition, 8L * (n + 1));
+        checkSection(mapped, file, indexPosition, 4L * slots);
+        long dataBytes = mapped.getLong(dictionaryPosition + 8L * n);
+        if (dataPosition % 8 != 0 || dataPosition < HEADER_BYTES || dataBytes < 0
+                || dataPosition > indexPosition || dataBytes > indexPosition - dataPosition
+                || indexPosition + 4L * slots != mapped.size()) {
+            throw new IOException("Truncated graph snapshot: " + file);
+        }
+
+        CsrGraph csr = new MappedCsrGraph(mapped, n, m, offsetsPosition, targetsPosition, weightsPosition);
+        MappedVertexList<T> vertices = new MappedVertexList<>(mapped, n, dictionaryPosition, dataPosition,
+                indexPosition, slots, codec);
+        return DirectedWeightedGraph.fromCsr(bothWays, vertices, vertices::find, csr);
+    }
+
+    // Section of the given length must start 8-aligned past the header and
+    // end within the file
+    private static void checkSection(MappedFile mapped, Path file, long position, long bytes) throws IOException {
+        if (position % 8 != 0 || position < HEADER_BYTES || position > mapped.size()
+                || bytes > mapped.size() - position) {
+            throw new IOException("Truncated graph snapshot: " + file);
+        }
+    }
+
+    private static long align(long position) {
+        return (position + 7) & ~7L;
+    }
+
+    private static class MappedVertexList<T> extends AbstractList<T> implements RandomAccess {
+        private final MappedFile file;
+        private final int size;
+        private final long dictionaryPosition;
+        private final long dataPosition;
+        private final long indexPosition;
+        private final int slots;
+        private final VertexCodec<T> codec;
+
+        MappedVertexList(MappedFile file, int size, long dictionaryPosition, long dataPosition, long indexPosition,
+                int slots, VertexCodec<T> codec) {
+            this.file = file;
+            this.size = size;
+            this.dictionaryPosition = dictionaryPosition;
+            this.dataPosition = dataPosition;
+            this.indexPosition = indexPosition;
+            this.slots = slots;
+            this.codec = codec;
+        }
+
+        // Index of the vertex, -1 if absent: probes the stored table and
+        // compares the encoded bytes against the data section in place
+        int find(T vertex) {
+            if (vertex == null) {
+                return -1;
+            }
+            byte[] bytes = codec.encode(vertex);
+            int slot = (int) hash(bytes) & (slots - 1);
+            while (true) {
+                int index = file.getInt(indexPosition + 4L * slot);
+                if (index == -1) {
+                    return -1;
+                }
+                if (matches(index, bytes)) {
+                    return index;
+                }
+                slot = (slot + 1) & (slots - 1);
+            }
+        }
+
+        private boolean matches(int index, byte[] bytes) {
+            long start = file.getLong(dictionaryPosition + 8L * index);
+            long end = file.getLong(dictionaryPosition + 8L * (index + 1));
+            if (end - start != bytes.length) {
+                return false;
+            }
+            for (int i = 0; i < bytes.length; i++) {
+                if (file.getByte(dataPosition + start + i) != bytes[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public T get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Vertex index " + index + " out of range");
+            }
+            long start = file.getLong(dictionaryPosition + 8L * index);
+            long end = file.getLong(dictionaryPosition + 8L * (index + 1));
+            byte[] bytes = new byte[(int) (end - start)];
+            file.getBytes(dataPosition + start, bytes);
+            return codec.decode(bytes);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    // Little-endian writer that stages output in one direct buffer
+    private static class Output {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        private long position;
+
+        Output(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void putInt(int value) throws IOException {
+            ensure(4);
+            buffer.putInt(value);
+            position += 4;
+        }
+
+        void putLong(long value) throws IOException {
+            ensure(8);
+            buffer.putLong(value);
+            position += 8;
+        }
+
+        void putBytes(byte[] bytes) throws IOException {
+            for (int i = 0; i < bytes.length;) {
+                ensure(1);
+                int count = Math.min(bytes.length - i, buffer.remaining());
+                buffer.put(bytes, i, count);
+                i += count;
+                position += count;
+            }
+        }
+
+        void padTo(long target) throws IOException {
+            while (position < target) {
+                ensure(1);
+                buffer.put((byte) 0);
+                position++;
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+    }
+}
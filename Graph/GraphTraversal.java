@@ -0,0 +1,217 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+// Lazy breadth- or depth-first traversal over vertex indices. Nothing is
+// explored ahead of the caller: a vertex's edges are scanned only when the
+// traversal is advanced past it, so stopping early (or through a stream's
+// findFirst, anyMatch or limit) skips the rest of the graph entirely.
+// Vertices deeper than maxDepth are neither returned nor explored.
+//
+// With a source the traversal covers what the source reaches; without one it
+// covers every vertex, starting a new tree at the lowest unvisited index
+// whenever the current one is exhausted.
+public final class GraphTraversal implements PrimitiveIterator.OfInt {
+    // Receives each vertex with its depth in the traversal tree; returning
+    // false stops the traversal
+    public interface Visitor {
+        boolean visit(int vertex, int depth);
+    }
+
+    private final CsrGraph g;
+    private final AbstractDirectedWeightedGraph.TraversalOrder order;
+    private final int maxDepth;
+    private final boolean[] visited;
+    private final boolean allRoots;
+    private int nextRoot;
+
+    // Breadth-first state: the queue holds one level after the other
+    private IntRingBuffer queue;
+    private int pending = -1; // returned vertex whose edges are not scanned yet
+    private int pendingDepth;
+    private int levelRemaining;
+    private int nextLevelSize;
+    private int queueDepth;
+
+    // Depth-first state: one frame per vertex on the current path
+    private int[] stackVertex;
+    private int[] stackEdge;
+    private int stackSize;
+
+    private int next = -1;
+    private int nextDepth;
+    private int depth = -1;
+
+    GraphTraversal(CsrGraph g, AbstractDirectedWeightedGraph.TraversalOrder order, int source, int maxDepth,
+            boolean[] visited) {
+        if (maxDepth < 0) {
+            throw new IllegalArgumentException("Depth limit must not be negative: " + maxDepth);
+        }
+        this.g = g;
+        this.order = order;
+        this.maxDepth = maxDepth;
+        this.visited = visited != null ? visited : new boolean[g.getVertexCount()];
+        this.allRoots = source == -1;
+        if (order == AbstractDirectedWeightedGraph.TraversalOrder.BREADTH_FIRST) {
+            queue = new IntRingBuffer();
+        } else {
+            stackVertex = new int[16];
+            stackEdge = new int[16];
+        }
+        if (!allRoots && !this.visited[source]) {
+            start(source);
+        }
+    }
+
+    // Depth of the vertex last returned by nextInt, 0 for a root
+    public int getDepth() {
+        return depth;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == -1) {
+            advance();
+        }
+        return next != -1;
+    }
+
+    @Override
+    public int nextInt() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        int vertex = next;
+        depth = nextDepth;
+        next = -1;
+        return vertex;
+    }
+
+    // Feeds the remaining vertices to the visitor until it returns false.
+    // Returns the vertex it stopped at, or -1 if the traversal ran out.
+    public int visit(Visitor visitor) {
+        while (hasNext()) {
+            int vertex = nextInt();
+            if (!visitor.visit(vertex, depth)) {
+                return vertex;
+            }
+        }
+        return -1;
+    }
+
+    public IntStream stream() {
+        return StreamSupport.intStream(Spliterators.spliteratorUnknownSize(this,
+                Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL), false);
+    }
+
+    private void start(int root) {
+        visited[root] = true;
+        if (queue != null) {
+            queue.add(root);
+            queueDepth = 0;
+            levelRemaining = 1;
+            nextLevelSize = 0;
+        } else {
+            push(root);
+            if (order == AbstractDirectedWeightedGraph.TraversalOrder.DEPTH_FIRST_PREORDER) {
+                next = root;
+                nextDepth = 0;
+            }
+        }
+    }
+
+    private void advance() {
+        while (true) {
+            if (queue != null ? advanceBreadthFirst() : advanceDepthFirst()) {
+                return;
+            }
+            if (!allRoots) {
+                return;
+            }
+            while (nextRoot < visited.length && visited[nextRoot]) {
+                nextRoot++;
+            }
+            if (nextRoot == visited.length) {
+                return;
+            }
+            start(nextRoot);
+            if (next != -1) {
+                return;
+            }
+        }
+    }
+
+    private boolean advanceBreadthFirst() {
+        if (pending != -1) {
+            if (pendingDepth < maxDepth) {
+                for (int e = g.firstEdge(pending); e < g.endEdge(pending); e++) {
+                    int v = g.getTarget(e);
+                    if (!visited[v]) {
+                        visited[v] = true;
+                        queue.add(v);
+                        nextLevelSize++;
+                    }
+                }
+            }
+            pending = -1;
+        }
+        if (queue.isEmpty()) {
+            return false;
+        }
+        if (levelRemaining == 0) {
+            queueDepth++;
+            levelRemaining = nextLevelSize;
+            nextLevelSize = 0;
+        }
+        levelRemaining--;
+        next = queue.poll();
+        nextDepth = queueDepth;
+        pending = next;
+        pendingDepth = queueDepth;
+        return true;
+    }
+
+    // Walks the edges of the top frame until it finds an unvisited vertex
+    // (returned in preorder) or runs out of edges (returned in postorder)
+    private boolean advanceDepthFirst() {
+        boolean preorder = order == AbstractDirectedWeightedGraph.TraversalOrder.DEPTH_FIRST_PREORDER;
+        while (stackSize > 0) {
+            int top = stackSize - 1;
+            int u = stackVertex[top];
+            int end = top < maxDepth ? g.endEdge(u) : g.firstEdge(u);
+            if (stackEdge[top] < end) {
+                int v = g.getTarget(stackEdge[top]++);
+                if (!visited[v]) {
+                    visited[v] = true;
+                    push(v);
+                    if (preorder) {
+                        next = v;
+                        nextDepth = top + 1;
+                        return true;
+                    }
+                }
+                continue;
+            }
+            stackSize--;
+            if (!preorder) {
+                next = u;
+                nextDepth = top;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void push(int v) {
+        if (stackSize == stackVertex.length) {
+            stackVertex = Arrays.copyOf(stackVertex, stackSize * 2);
+            stackEdge = Arrays.copyOf(stackEdge, stackSize * 2);
+        }
+        stackVertex[stackSize] = v;
+        stackEdge[stackSize++] = g.firstEdge(v);
+    }
+}
@@ -0,0 +1,370 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Hamiltonian cycle and path queries. Graphs with up to HELD_KARP_LIMIT
+// vertices are solved exactly by Held-Karp bitmask dynamic programming in
+// O(2^V * V) steps over bitset adjacency. Larger graphs run a parallel
+// branch-and-bound search that prunes as soon as some unvisited vertex has no
+// way left to be entered. Both honour the time budget and cancel().
+public class HamiltonianSearch<T> {
+    public static final int HELD_KARP_LIMIT = 25;
+
+    // Levels of the search tree that are forked into parallel tasks
+    private static final int SPLIT_DEPTH = 3;
+    // Search nodes between two checks of the clock and the cancel flag
+    private static final int CHECK_INTERVAL = 4096;
+
+    public enum Status {
+        FOUND, NOT_FOUND, TIMED_OUT, CANCELLED
+    }
+
+    private final AbstractDirectedWeightedGraph<T> graph;
+    private final CsrGraph g;
+    private final int n;
+    private long timeoutNanos = Long.MAX_VALUE;
+    private volatile boolean cancelled;
+    private volatile boolean stop;
+    private long deadline;
+    private final AtomicReference<int[]> solution = new AtomicReference<>();
+    private AdjacencyIndex adjacency; // closes cycles in the branch-and-bound search
+    private int[] path;
+
+    HamiltonianSearch(AbstractDirectedWeightedGraph<T> graph, CsrGraph g) {
+        this.graph = graph;
+        this.g = g;
+        this.n = g.getVertexCount();
+    }
+
+    // Gives up with TIMED_OUT once the budget is spent
+    public HamiltonianSearch<T> withTimeout(long millis) {
+        timeoutNanos = millis * 1_000_000;
+        return this;
+    }
+
+    // Stops a running search from another thread; it returns CANCELLED
+    public void cancel() {
+        cancelled = true;
+        stop = true;
+    }
+
+    // A cycle through every vertex exactly once, starting and ending at index 0
+    public Status findCycle() {
+        return search(true);
+    }
+
+    // A path through every vertex exactly once
+    public Status findPath() {
+        return search(false);
+    }
+
+    // Vertex indices of the last path or cycle found, null if none
+    public int[] getPathByIndex() {
+        return path;
+    }
+
+    public List<T> getPath() {
+        if (path == null) {
+            return null;
+        }
+        List<T> result = new ArrayList<>(path.length);
+        for (int v : path) {
+            result.add(graph.getVertex(v));
+        }
+        return result;
+    }
+
+    private Status search(boolean cycle) {
+        path = null;
+        solution.set(null);
+        stop = cancelled;
+        deadline = System.nanoTime() + timeoutNanos;
+
+        boolean found;
+        if (n == 0) {
+            found = false;
+        } else if (n <= HELD_KARP_LIMIT) {
+            found = heldKarp(cycle);
+        } else {
+            found = branchAndBound(cycle);
+        }
+        if (found) {
+            return Status.FOUND;
+        }
+        if (cancelled) {
+            return Status.CANCELLED;
+        }
+        return stop ? Status.TIMED_OUT : Status.NOT_FOUND;
+    }
+
+    private boolean outOfTime() {
+        if (!stop && timeoutNanos != Long.MAX_VALUE && System.nanoTime() - deadline > 0) {
+            stop = true;
+        }
+        return stop;
+    }
+
+    // ends[mask] is the set of vertices v such that some path visits exactly
+    // the vertices in mask and ends at v. For a cycle every path starts at 0.
+    private boolean heldKarp(boolean cycle) {
+        int[] out = new int[n];
+        int[] in = new int[n];
+        for (int u = 0; u < n; u++) {
+            for (int e = g.firstEdge(u); e < g.endEdge(u); e++) {
+                int v = g.getTarget(e);
+                out[u] |= 1 << v;
+                in[v] |= 1 << u;
+            }
+        }
+        if (n == 1) {
+            if (cycle && (out[0] & 1) == 0) {
+                return false;
+            }
+            path = new int[] { 0 };
+            return true;
+        }
+
+        int full = (1 << n) - 1;
+        int[] ends = new int[1 << n];
+        if (cycle) {
+            ends[1] = 1;
+        } else {
+            for (int v = 0; v < n; v++) {
+                ends[1 << v] = 1 << v;
+            }
+        }
+        for (int mask = 1; mask < full; mask++) {
+            if ((mask & (CHECK_INTERVAL - 1)) == 0 && outOfTime()) {
+                return false;
+            }
+            int last = ends[mask];
+            if (last == 0) {
+                continue;
+            }
+            int reach = 0;
+            for (int rest = last; rest != 0; rest &= rest - 1) {
+                reach |= out[Integer.numberOfTrailingZeros(rest)];
+            }
+            for (int next = reach & ~mask; next != 0; next &= next - 1) {
+                int bit = next & -next;
+                ends[mask | bit] |= bit;
+            }
+        }
+
+        int candidates = cycle ? ends[full] & in[0] : ends[full];
+        if (candidates == 0) {
+            return false;
+        }
+        int[] result = new int[n];
+        int mask = full;
+        int v = Integer.numberOfTrailingZeros(candidates);
+        for (int i = n - 1; i > 0; i--) {
+            result[i] = v;
+            mask ^= 1 << v;
+            v = Integer.numberOfTrailingZeros(ends[mask] & in[v]);
+        }
+        result[0] = v;
+        path = result;
+        return true;
+    }
+
+    private boolean branchAndBound(boolean cycle) {
+        int[] inDegree = new int[n];
+        int[] outDegree = new int[n];
+        for (int u = 0; u < n; u++) {
+            for (int e = g.firstEdge(u); e < g.endEdge(u); e++) {
+                int v = g.getTarget(e);
+                if (v != u) {
+                    outDegree[u]++;
+                    inDegree[v]++;
+                }
+            }
+        }
+
+        // Degree pruning before any search: on a cycle every vertex needs an
+        // in- and an out-edge; a path allows one exception of each kind
+        int sources = 0;
+        int sinks = 0;
+        int forcedStart = -1;
+        for (int v = 0; v < n; v++) {
+            if (inDegree[v] == 0) {
+                sources++;
+                forcedStart = v;
+            }
+            if (outDegree[v] == 0) {
+                sinks++;
+            }
+        }
+        if (cycle ? sources + sinks > 0 : sources > 1 || sinks > 1) {
+            return false;
+        }
+
+        adjacency = new AdjacencyIndex(g);
+        List<Task> tasks = new ArrayList<>();
+        if (cycle) {
+            tasks.add(new Task(true, 0, inDegree));
+        } else if (forcedStart != -1) {
+            tasks.add(new Task(false, forcedStart, inDegree));
+        } else {
+            for (int s = 0; s < n; s++) {
+                tasks.add(new Task(false, s, inDegree));
+            }
+        }
+        ForkJoinPool.commonPool().invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(tasks);
+            }
+        });
+
+        int[] result = solution.get();
+        if (result == null) {
+            return false;
+        }
+        path = result;
+        return true;
+    }
+
+    // One subtree of the search: a fixed path prefix plus the bookkeeping
+    // needed to extend it. available[w] counts the in-edges of w whose source
+    // is still unvisited or is the current end of the path.
+    private class Task extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final boolean cycle;
+        private final int[] prefix;
+        private final boolean[] visited;
+        private final int[] available;
+        private final int depth;
+        private final boolean alive;
+        private long nodes;
+
+        Task(boolean cycle, int start, int[] inDegree) {
+            this.cycle = cycle;
+            this.prefix = new int[n];
+            this.visited = new boolean[n];
+            this.available = inDegree.clone();
+            this.depth = 1;
+            this.alive = true;
+            prefix[0] = start;
+            visited[start] = true;
+        }
+
+        Task(Task parent, int next) {
+            this.cycle = parent.cycle;
+            this.prefix = parent.prefix.clone();
+            this.visited = parent.visited.clone();
+            this.available = parent.available.clone();
+            this.depth = parent.depth + 1;
+            prefix[depth - 1] = next;
+            visited[next] = true;
+            this.alive = advance(prefix[depth - 2], next);
+        }
+
+        @Override
+        protected void compute() {
+            if (stop || !alive) {
+                return;
+            }
+            if (depth < SPLIT_DEPTH && depth < n) {
+                int u = prefix[depth - 1];
+                List<Task> children = new ArrayList<>();
+                for (int e = g.firstEdge(u); e < g.endEdge(u); e++) {
+                    int v = g.getTarget(e);
+                    if (!visited[v]) {
+                        children.add(new Task(this, v));
+                    }
+                }
+                invokeAll(children);
+                return;
+            }
+            extend(depth);
+        }
+
+        private boolean extend(int length) {
+            if (stop || (++nodes % CHECK_INTERVAL == 0 && outOfTime())) {
+                return false;
+            }
+            int u = prefix[length - 1];
+            if (length == n) {
+                if (cycle && !adjacency.hasEdge(u, prefix[0])) {
+                    return false;
+                }
+                if (solution.compareAndSet(null, prefix.clone())) {
+                    stop = true;
+                }
+                return true;
+            }
+
+            // Most constrained first: a neighbour that can only be entered
+            // from u has to come next or never
+            int first = g.firstEdge(u);
+            int count = g.endEdge(u) - first;
+            int[] order = new int[count];
+            int k = 0;
+            for (int e = first; e < first + count; e++) {
+                int v = g.getTarget(e);
+                if (!visited[v]) {
+                    order[k++] = v;
+                }
+            }
+            sortByAvailable(order, k);
+
+            for (int i = 0; i < k; i++) {
+                int v = order[i];
+                if (visited[v]) {
+                    continue; // duplicate of a parallel edge
+                }
+                visited[v] = true;
+                prefix[length] = v;
+                if (advance(u, v) && extend(length + 1)) {
+                    return true;
+                }
+                retreat(u, v);
+                visited[v] = false;
+                if (stop) {
+                    return false;
+                }
+            }
+            return false;
+        }
+
+        // u stops being the end of the path. Returns false if that leaves an
+        // unvisited vertex, or the start of a cycle, without any way in.
+        private boolean advance(int u, int v) {
+            boolean alive = true;
+            for (int e = g.firstEdge(u); e < g.endEdge(u); e++) {
+                int w = g.getTarget(e);
+                if (w != u && w != v && (!visited[w] || (cycle && w == prefix[0]))) {
+                    if (--available[w] == 0) {
+                        alive = false;
+                    }
+                }
+            }
+            return alive;
+        }
+
+        private void retreat(int u, int v) {
+            for (int e = g.firstEdge(u); e < g.endEdge(u); e++) {
+                int w = g.getTarget(e);
+                if (w != u && w != v && (!visited[w] || (cycle && w == prefix[0]))) {
+                    available[w]++;
+                }
+            }
+        }
+
+        private void sortByAvailable(int[] order, int k) {
+            for (int i = 1; i < k; i++) {
+                int v = order[i];
+                int j = i - 1;
+                while (j >= 0 && available[order[j]] > available[v]) {
+                    order[j + 1] = order[j];
+                    j--;
+                }
+                order[j + 1] = v;
+            }
+        }
+    }
+}
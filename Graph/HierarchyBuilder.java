@@ -0,0 +1,312 @@
+import java.util.Arrays;
+
+// Contraction hierarchy preprocessing. Vertices are contracted one at a time
+// in order of edge difference (shortcuts added minus edges removed), plus the
+// number of neighbours already contracted and the shortcut level, which both
+// spread contraction evenly over the graph and keep the hierarchy shallow.
+// Contracting v removes it from the remaining overlay graph and adds a
+// shortcut u -> w for every pair of in- and out-neighbours unless a local
+// witness search finds a path at least as short that avoids v.
+//
+// Each edge is recorded when its lower-ranked endpoint is contracted: out-edges
+// into the upward graph, in-edges into the downward graph, both in CSR form.
+final class HierarchyBuilder {
+    // Vertices a witness search may settle before it gives up; a missed
+    // witness only costs a superfluous shortcut. Priority simulations use a
+    // tighter limit, they only need an estimate.
+    private static final int WITNESS_SETTLE_LIMIT = 500;
+    private static final int SIMULATION_SETTLE_LIMIT = 50;
+
+    private final int n;
+    private final EdgeList[] out;
+    private final EdgeList[] in;
+    private final int[] contractedNeighbours;
+    private final int[] level; // length of the longest shortcut chain below the vertex
+    private final WitnessSearch witness;
+    private int shortcuts;
+
+    final int[] rank;
+    int[] upOffsets;
+    int[] upTargets;
+    long[] upWeights;
+    int[] upMiddles;
+    int[] downOffsets;
+    int[] downSources;
+    long[] downWeights;
+    int[] downMiddles;
+
+    HierarchyBuilder(CsrGraph g) {
+        n = g.getVertexCount();
+        out = new EdgeList[n];
+        in = new EdgeList[n];
+        for (int v = 0; v < n; v++) {
+            out[v] = new EdgeList(g.getOutDegree(v));
+            in[v] = new EdgeList(2);
+        }
+        for (int u = 0; u < n; u++) {
+            for (int e = g.firstEdge(u); e < g.endEdge(u); e++) {
+                long weight = g.getWeight(e);
+                if (weight < 0) {
+                    throw new IllegalArgumentException("Contraction hierarchies do not support negative edge weights");
+                }
+                int v = g.getTarget(e);
+                if (u != v) {
+                    addOrImprove(u, v, weight, -1);
+                }
+            }
+        }
+        contractedNeighbours = new int[n];
+        level = new int[n];
+        witness = new WitnessSearch(n);
+        rank = new int[n];
+    }
+
+    int getShortcutCount() {
+        return shortcuts;
+    }
+
+    void build() {
+        IndexedDaryHeap queue = new IndexedDaryHeap(n);
+        for (int v = 0; v < n; v++) {
+            queue.insertOrDecrease(v, priority(v));
+        }
+        int[] upDegree = new int[n];
+        int[] downDegree = new int[n];
+        EdgeList[] up = new EdgeList[n];
+        EdgeList[] down = new EdgeList[n];
+
+        for (int next = 0; next < n; next++) {
+            // Lazy updates: priorities are only recomputed when a vertex comes
+            // off the queue, and it goes back in unless it is still the minimum.
+            // Eagerly updating the neighbours of each contracted vertex tripled
+            // the preprocessing time without producing a better order.
+            int v = queue.pollMin();
+            long current = priority(v);
+            while (!queue.isEmpty() && current > queue.getKey(queue.get(0))) {
+                queue.insertOrDecrease(v, current);
+                v = queue.pollMin();
+                current = priority(v);
+            }
+
+            rank[v] = next;
+            up[v] = out[v];
+            down[v] = in[v];
+            upDegree[v] = out[v].size;
+            downDegree[v] = in[v].size;
+            contract(v, false);
+
+            EdgeList outV = out[v];
+            EdgeList inV = in[v];
+            for (int i = 0; i < outV.size; i++) {
+                int w = outV.target[i];
+                in[w].remove(v);
+                contractedNeighbours[w]++;
+                level[w] = Math.max(level[w], level[v] + 1);
+            }
+            for (int i = 0; i < inV.size; i++) {
+                int u = inV.target[i];
+                out[u].remove(v);
+                contractedNeighbours[u]++;
+                level[u] = Math.max(level[u], level[v] + 1);
+            }
+            out[v] = null;
+            in[v] = null;
+        }
+
+        upOffsets = offsets(upDegree);
+        downOffsets = offsets(downDegree);
+        upTargets = new int[upOffsets[n]];
+        upWeights = new long[upOffsets[n]];
+        upMiddles = new int[upOffsets[n]];
+        downSources = new int[downOffsets[n]];
+        downWeights = new long[downOffsets[n]];
+        downMiddles = new int[downOffsets[n]];
+        for (int v = 0; v < n; v++) {
+            up[v].copyTo(upTargets, upWeights, upMiddles, upOffsets[v]);
+            down[v].copyTo(downSources, downWeights, downMiddles, downOffsets[v]);
+            up[v] = null;
+            down[v] = null;
+        }
+    }
+
+    private long priority(int v) {
+        int added = contract(v, true);
+        return 2L * (added - out[v].size - in[v].size) + contractedNeighbours[v] + level[v];
+    }
+
+    private static int[] offsets(int[] degree) {
+        int[] offsets = new int[degree.length + 1];
+        for (int v = 0; v < degree.length; v++) {
+            offsets[v + 1] = offsets[v] + degree[v];
+        }
+        return offsets;
+    }
+
+    // Returns the number of shortcuts contracting v needs; adds them unless
+    // this is a simulation for the priority
+    private int contract(int v, boolean simulate) {
+        EdgeList inV = in[v];
+        EdgeList outV = out[v];
+        if (inV.size == 0 || outV.size == 0) {
+            return 0;
+        }
+        long maxOut = 0;
+        for (int i = 0; i < outV.size; i++) {
+            maxOut = Math.max(maxOut, outV.weight[i]);
+        }
+        int added = 0;
+        for (int i = 0; i < inV.size; i++) {
+            int u = inV.target[i];
+            long toV = inV.weight[i];
+            witness.run(u, v, toV + maxOut, outV, simulate ? SIMULATION_SETTLE_LIMIT : WITNESS_SETTLE_LIMIT);
+            for (int j = 0; j < outV.size; j++) {
+                int w = outV.target[j];
+                long via = toV + outV.weight[j];
+                if (w == u || witness.distance(w) <= via) {
+                    continue;
+                }
+                added++;
+                if (!simulate && addOrImprove(u, w, via, v)) {
+                    shortcuts++;
+                }
+            }
+            witness.reset();
+        }
+        return added;
+    }
+
+    // Adds u -> w to the overlay, or lowers the weight of an existing u -> w.
+    // Returns true if a new edge was added.
+    private boolean addOrImprove(int u, int w, long weight, int middle) {
+        int i = out[u].indexOf(w);
+        if (i != -1) {
+            if (weight < out[u].weight[i]) {
+                out[u].weight[i] = weight;
+                out[u].middle[i] = middle;
+                int j = in[w].indexOf(u);
+                in[w].weight[j] = weight;
+                in[w].middle[j] = middle;
+            }
+            return false;
+        }
+        out[u].add(w, weight, middle);
+        in[w].add(u, weight, middle);
+        return true;
+    }
+
+    // Bounded Dijkstra over the overlay that skips the vertex being contracted
+    private class WitnessSearch {
+        private final long[] distance;
+        private final int[] touched;
+        private final boolean[] isTarget;
+        private final IndexedDaryHeap queue;
+        private int touchedCount;
+
+        WitnessSearch(int n) {
+            distance = new long[n];
+            touched = new int[n];
+            isTarget = new boolean[n];
+            queue = new IndexedDaryHeap(n);
+            Arrays.fill(distance, ShortestPathResult.UNREACHABLE);
+        }
+
+        // Stops early once every target is settled or the distance limit is passed
+        void run(int source, int skip, long limit, EdgeList targets, int settleLimit) {
+            for (int i = 0; i < targets.size; i++) {
+                isTarget[targets.target[i]] = true;
+            }
+            int pending = targets.size;
+            set(source, 0);
+            queue.insertOrDecrease(source, 0);
+            int settled = 0;
+            while (!queue.isEmpty() && settled++ < settleLimit) {
+                int x = queue.pollMin();
+                long dx = distance[x];
+                if (dx > limit || (isTarget[x] && --pending == 0)) {
+                    break;
+                }
+                EdgeList edges = out[x];
+                for (int i = 0; i < edges.size; i++) {
+                    int y = edges.target[i];
+                    long candidate = dx + edges.weight[i];
+                    if (y != skip && candidate < distance[y]) {
+                        set(y, candidate);
+                        queue.insertOrDecrease(y, candidate);
+                    }
+                }
+            }
+            queue.clear();
+            for (int i = 0; i < targets.size; i++) {
+                isTarget[targets.target[i]] = false;
+            }
+        }
+
+        long distance(int v) {
+            return distance[v];
+        }
+
+        private void set(int v, long d) {
+            if (distance[v] == ShortestPathResult.UNREACHABLE) {
+                touched[touchedCount++] = v;
+            }
+            distance[v] = d;
+        }
+
+        void reset() {
+            for (int i = 0; i < touchedCount; i++) {
+                distance[touched[i]] = ShortestPathResult.UNREACHABLE;
+            }
+            touchedCount = 0;
+        }
+    }
+
+    // Growable adjacency of one vertex in the overlay graph. middle is the
+    // contracted vertex a shortcut bypasses, -1 for original edges.
+    private static class EdgeList {
+        int[] target;
+        long[] weight;
+        int[] middle;
+        int size;
+
+        EdgeList(int capacity) {
+            capacity = Math.max(capacity, 1);
+            target = new int[capacity];
+            weight = new long[capacity];
+            middle = new int[capacity];
+        }
+
+        void add(int t, long w, int m) {
+            if (size == target.length) {
+                target = Arrays.copyOf(target, size * 2);
+                weight = Arrays.copyOf(weight, size * 2);
+                middle = Arrays.copyOf(middle, size * 2);
+            }
+            target[size] = t;
+            weight[size] = w;
+            middle[size++] = m;
+        }
+
+        int indexOf(int t) {
+            for (int i = 0; i < size; i++) {
+                if (target[i] == t) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        void remove(int t) {
+            int i = indexOf(t);
+            size--;
+            target[i] = target[size];
+            weight[i] = weight[size];
+            middle[i] = middle[size];
+        }
+
+        void copyTo(int[] targets, long[] weights, int[] middles, int offset) {
+            System.arraycopy(target, 0, targets, offset, size);
+            System.arraycopy(weight, 0, weights, offset, size);
+            System.arraycopy(middle, 0, middles, offset, size);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+import java.util.Arrays;
+
+// Min-priority queue of vertex indices keyed by long priorities, with
+// decrease-key. A 4-ary layout keeps the heap shallow and sibling keys on
+// the same cache line; everything lives in primitive arrays.
+final class IndexedDaryHeap {
+    private static final int ARITY = 4;
+
+    private final int[] heap; // heap slot -> vertex
+    private final int[] position; // vertex -> heap slot, -1 when not queued
+    private final long[] keys; // vertex -> priority
+    private int size;
+
+    IndexedDaryHeap(int capacity) {
+        heap = new int[capacity];
+        position = new int[capacity];
+        keys = new long[capacity];
+        Arrays.fill(position, -1);
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean contains(int vertex) {
+        return position[vertex] != -1;
+    }
+
+    long getKey(int vertex) {
+        return keys[vertex];
+    }
+
+    // Vertex stored in the given heap slot, for walking the queued vertices
+    int get(int slot) {
+        return heap[slot];
+    }
+
+    // Inserts the vertex, or lowers its key if it is already queued
+    void insertOrDecrease(int vertex, long key) {
+        int slot = position[vertex];
+        if (slot == -1) {
+            slot = size++;
+        } else if (key >= keys[vertex]) {
+            return;
+        }
+        keys[vertex] = key;
+        siftUp(vertex, slot);
+    }
+
+    int pollMin() {
+        int min = heap[0];
+        position[min] = -1;
+        int last = heap[--size];
+        if (size > 0) {
+            siftDown(last, 0);
+        }
+        return min;
+    }
+
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            position[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    private void siftUp(int vertex, int slot) {
+        long key = keys[vertex];
+        while (slot > 0) {
+            int parentSlot = (slot - 1) / ARITY;
+            int parent = heap[parentSlot];
+            if (keys[parent] <= key) {
+                break;
+            }
+            heap[slot] = parent;
+            position[parent] = slot;
+            slot = parentSlot;
+        }
+        heap[slot] = vertex;
+        position[vertex] = slot;
+    }
+
+    private void siftDown(int vertex, int slot) {
+        long key = keys[vertex];
+        while (true) {
+            int firstChild = slot * ARITY + 1;
+            if (firstChild >= size) {
+                break;
+            }
+            int lastChild = Math.min(firstChild + ARITY, size);
+            int best = firstChild;
+            for (int child = firstChild + 1; child < lastChild; child++) {
+                if (keys[heap[child]] < keys[heap[best]]) {
+                    best = child;
+                }
+            }
+            if (keys[heap[best]] >= key) {
+                break;
+            }
+            heap[slot] = heap[best];
+            position[heap[slot]] = slot;
+            slot = best;
+        }
+        heap[slot] = vertex;
+        position[vertex] = slot;
+    }
+}
@@ -0,0 +1,51 @@
+import java.util.Arrays;
+
+// FIFO queue of primitive ints on a growable power-of-two ring, so enqueue
+// and dequeue are O(1) without boxing
+final class IntRingBuffer {
+    private int[] items;
+    private int head;
+    private int size;
+
+    IntRingBuffer() {
+        this(16);
+    }
+
+    IntRingBuffer(int capacity) {
+        items = new int[Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1];
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void add(int value) {
+        if (size == items.length) {
+            grow();
+        }
+        items[(head + size++) & (items.length - 1)] = value;
+    }
+
+    int poll() {
+        int value = items[head];
+        head = (head + 1) & (items.length - 1);
+        size--;
+        return value;
+    }
+
+    void clear() {
+        head = 0;
+        size = 0;
+    }
+
+    private void grow() {
+        int[] larger = Arrays.copyOf(Arrays.copyOfRange(items, head, items.length), items.length * 2);
+        System.arraycopy(items, 0, larger, items.length - head, head);
+        items = larger;
+        head = 0;
+    }
+}
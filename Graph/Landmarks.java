@@ -0,0 +1,83 @@
+import java.util.Arrays;
+
+// Landmark distances for ALT lower bounds. For every landmark L the exact
+// distances d(L, v) and d(v, L) are kept in flat long arrays of count * V
+// entries. By the triangle inequality both d(L, t) - d(L, v) and
+// d(v, L) - d(t, L) bound d(v, t) from below.
+final class Landmarks {
+    static final int DEFAULT_COUNT = 8;
+
+    private final int n;
+    private final int[] landmarks;
+    private final long[] fromLandmark; // [i * n + v] = d(landmark i, v)
+    private final long[] toLandmark; // [i * n + v] = d(v, landmark i)
+
+    // Farthest selection: each new landmark is the vertex whose distance from
+    // the closest landmark chosen so far is largest. Vertices no landmark
+    // reaches count as farthest, so every component reachable that way gets one.
+    Landmarks(CsrGraph g, CsrGraph reverse, int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("Landmark count must be positive: " + count);
+        }
+        n = g.getVertexCount();
+        count = Math.min(count, n);
+        landmarks = new int[count];
+        fromLandmark = new long[count * n];
+        toLandmark = new long[count * n];
+
+        long[] row = new long[n];
+        int[] parent = new int[n];
+        long[] nearest = new long[n];
+        Arrays.fill(nearest, ShortestPathResult.UNREACHABLE);
+        int next = 0;
+        for (int i = 0; i < count; i++) {
+            landmarks[i] = next;
+            DijkstraSearch.run(g, next, -1, row, parent);
+            System.arraycopy(row, 0, fromLandmark, i * n, n);
+            DijkstraSearch.run(reverse, next, -1, row, parent);
+            System.arraycopy(row, 0, toLandmark, i * n, n);
+
+            nearest[next] = -1;
+            next = 0;
+            for (int v = 0; v < n; v++) {
+                if (nearest[v] != -1) {
+                    nearest[v] = Math.min(nearest[v], fromLandmark[i * n + v]);
+                    if (nearest[v] > nearest[next] || nearest[next] == -1) {
+                        next = v;
+                    }
+                }
+            }
+        }
+    }
+
+    int getCount() {
+        return landmarks.length;
+    }
+
+    // Lower bound on d(v, target); UNREACHABLE if some landmark proves that
+    // v cannot reach the target at all
+    long lowerBound(int v, int target) {
+        long bound = 0;
+        for (int i = 0, base = 0; i < landmarks.length; i++, base += n) {
+            long fromV = fromLandmark[base + v];
+            long fromT = fromLandmark[base + target];
+            if (fromT != ShortestPathResult.UNREACHABLE) {
+                if (fromV != ShortestPathResult.UNREACHABLE) {
+                    bound = Math.max(bound, fromT - fromV);
+                }
+            } else if (fromV != ShortestPathResult.UNREACHABLE) {
+                return ShortestPathResult.UNREACHABLE; // L reaches v but not t
+            }
+            long toV = toLandmark[base + v];
+            long toT = toLandmark[base + target];
+            if (toT != ShortestPathResult.UNREACHABLE) {
+                if (toV != ShortestPathResult.UNREACHABLE) {
+                    bound = Math.max(bound, toV - toT);
+                } else {
+                    return ShortestPathResult.UNREACHABLE; // t reaches L but v does not
+                }
+            }
+        }
+        return bound;
+    }
+}
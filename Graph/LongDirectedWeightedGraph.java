@@ -0,0 +1,250 @@
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Graph over primitive long vertex ids (int ids widen to it). The id-to-index
+// map is an open-addressing LongIntHashMap and each vertex's out-edges sit in
+// an int[] of targets and a long[] of weights, so neither storage nor the
+// algorithms box a vertex. Offers the same algorithms as DirectedWeightedGraph;
+// results address vertices as Long, or by index through the ...ByIndex methods.
+public class LongDirectedWeightedGraph extends AbstractDirectedWeightedGraph<Long> {
+    private static final int[] NO_TARGETS = new int[0];
+    private static final long[] NO_WEIGHTS = new long[0];
+
+    private final LongIntHashMap vertexToIndex = new LongIntHashMap();
+    private long[] indexToVertex = new long[16];
+    private int vertices;
+    private int[][] targets = new int[16][];
+    private long[][] weights = new long[16][];
+    private int[] degree = new int[16];
+    private int edges;
+    private boolean frozen;
+
+    public LongDirectedWeightedGraph(boolean bothWays) {
+        super(bothWays);
+    }
+
+    // Adds the vertex; ids must be unique
+    public void addVertex(long vertex) {
+        checkMutable();
+        if (vertexToIndex.putIfAbsent(vertex, vertices) != vertices) {
+            throw new IllegalArgumentException("Vertex already added: " + vertex);
+        }
+        if (vertices == indexToVertex.length) {
+            int capacity = vertices * 2;
+            indexToVertex = Arrays.copyOf(indexToVertex, capacity);
+            targets = Arrays.copyOf(targets, capacity);
+            weights = Arrays.copyOf(weights, capacity);
+            degree = Arrays.copyOf(degree, capacity);
+        }
+        targets[vertices] = NO_TARGETS;
+        weights[vertices] = NO_WEIGHTS;
+        indexToVertex[vertices++] = vertex;
+        invalidate();
+    }
+
+    public void addEdge(long source, long destination, long weight) {
+        checkMutable();
+        int sourceIndex = vertexToIndex.get(source);
+        int destinationIndex = vertexToIndex.get(destination);
+        if (sourceIndex == -1 || destinationIndex == -1) {
+            throw new IllegalArgumentException("Both vertices must be added before the edge");
+        }
+        addIndexedEdge(sourceIndex, destinationIndex, weight);
+    }
+
+    private void addIndexedEdge(int sourceIndex, int destinationIndex, long weight) {
+        if (bothWays) {
+            append(destinationIndex, sourceIndex, weight);
+        }
+        append(sourceIndex, destinationIndex, weight);
+        edges += bothWays ? 2 : 1;
+        invalidate();
+    }
+
+    // Adds a batch of edges at once. Ids are looked up in parallel for large
+    // batches, runs of edges from one source grow its adjacency once and the
+    // derived views are dropped once. If any id is missing nothing is added.
+    public void addEdges(long[] sources, long[] destinations, long[] weights) {
+        checkMutable();
+        EdgeBatch.checkLengths(sources.length, destinations.length, weights.length);
+        int[] sourceIndices = EdgeBatch.resolve(sources.length, k -> vertexToIndex.get(sources[k]), true);
+        int[] destinationIndices = EdgeBatch.resolve(destinations.length, k -> vertexToIndex.get(destinations[k]), true);
+        addIndexedEdges(sourceIndices, destinationIndices, weights);
+    }
+
+    // Batch of edges between vertex indices, skipping the id lookups
+    public void addEdgesByIndex(int[] sources, int[] destinations, long[] weights) {
+        checkMutable();
+        EdgeBatch.checkLengths(sources.length, destinations.length, weights.length);
+        EdgeBatch.checkIndices(sources, vertices);
+        EdgeBatch.checkIndices(destinations, vertices);
+        addIndexedEdges(sources, destinations, weights);
+    }
+
+    // Collects the stream, which may be parallel, and adds it as one batch
+    public void addEdges(Stream<WeightedEdge<Long>> edges) {
+        List<WeightedEdge<Long>> batch = edges.collect(Collectors.toList());
+        long[] sources = new long[batch.size()];
+        long[] destinations = new long[batch.size()];
+        long[] weights = new long[batch.size()];
+        for (int k = 0; k < sources.length; k++) {
+            WeightedEdge<Long> edge = batch.get(k);
+            sources[k] = edge.getSource();
+            destinations[k] = edge.getDestination();
+            weights[k] = edge.getWeight();
+        }
+        addEdges(sources, destinations, weights);
+    }
+
+    private void addIndexedEdges(int[] sources, int[] destinations, long[] edgeWeights) {
+        for (int k = 0; k < sources.length;) {
+            int run = EdgeBatch.runLength(sources, k);
+            if (run >= EdgeBatch.MIN_RESERVED_RUN) {
+                reserve(sources[k], degree[sources[k]] + run);
+            }
+            for (int end = k + run; k < end; k++) {
+                if (bothWays) {
+                    append(destinations[k], sources[k], edgeWeights[k]);
+                }
+                append(sources[k], destinations[k], edgeWeights[k]);
+            }
+        }
+        edges += (bothWays ? 2 : 1) * sources.length;
+        invalidate();
+    }
+
+    private void reserve(int vertex, int capacity) {
+        if (capacity > targets[vertex].length) {
+            capacity = Math.max(capacity, targets[vertex].length * 2);
+            targets[vertex] = Arrays.copyOf(targets[vertex], capacity);
+            weights[vertex] = Arrays.copyOf(weights[vertex], capacity);
+        }
+    }
+
+    private void append(int vertex, int target, long weight) {
+        int size = degree[vertex];
+        if (size == targets[vertex].length) {
+            reserve(vertex, Math.max(4, size + 1));
+        }
+        targets[vertex][size] = target;
+        weights[vertex][size] = weight;
+        degree[vertex] = size + 1;
+    }
+
+    private void checkMutable() {
+        if (frozen) {
+            throw new IllegalStateException("Cannot modify a frozen graph");
+        }
+    }
+
+    public int getIndex(long vertex) {
+        return vertexToIndex.get(vertex);
+    }
+
+    @Override
+    public int getIndex(Long vertex) {
+        return vertex == null ? -1 : vertexToIndex.get(vertex);
+    }
+
+    // Id of the vertex with the given index, without boxing
+    public long getVertexId(int index) {
+        if (index < 0 || index >= vertices) {
+            throw new IndexOutOfBoundsException("Vertex index " + index + " out of range");
+        }
+        return indexToVertex[index];
+    }
+
+    @Override
+    public Long getVertex(int index) {
+        if (index < 0 || index >= vertices) {
+            return null;
+        }
+        return indexToVertex[index];
+    }
+
+    public boolean hasEdge(long source, long destination) {
+        return hasEdgeByIndex(requireId(source), requireId(destination));
+    }
+
+    // Lightest weight of the edges source -> destination,
+    // ShortestPathResult.UNREACHABLE if there is none
+    public long getWeight(long source, long destination) {
+        return getWeightByIndex(requireId(source), requireId(destination));
+    }
+
+    private int requireId(long vertex) {
+        int index = vertexToIndex.get(vertex);
+        if (index == -1) {
+            throw new IllegalArgumentException("Vertex not found: " + vertex);
+        }
+        return index;
+    }
+
+    public boolean containsVertex(long vertex) {
+        return vertexToIndex.get(vertex) != -1;
+    }
+
+    @Override
+    public int getVertexCount() {
+        return vertices;
+    }
+
+    public int getEdgeCount() {
+        return edges;
+    }
+
+    @Override
+    CsrGraph buildCsr() {
+        int[] offsets = new int[vertices + 1];
+        int[] csrTargets = new int[edges];
+        long[] csrWeights = new long[edges];
+        for (int i = 0; i < vertices; i++) {
+            offsets[i + 1] = offsets[i] + degree[i];
+            System.arraycopy(targets[i], 0, csrTargets, offsets[i], degree[i]);
+            System.arraycopy(weights[i], 0, csrWeights, offsets[i], degree[i]);
+        }
+        return new ArrayCsrGraph(offsets, csrTargets, csrWeights);
+    }
+
+    // Builds the CSR view and releases the per-vertex edge arrays. The graph
+    // is read-only afterwards: addVertex and addEdge throw IllegalStateException.
+    public void freeze() {
+        toCsr();
+        targets = null;
+        weights = null;
+        frozen = true;
+    }
+
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    // Index-based traversal: the i-th out-edge of a vertex, without any hashing
+    public int getOutDegree(int vertex) {
+        return degree[vertex];
+    }
+
+    public int getNeighbor(int vertex, int i) {
+        return frozen ? csr.getTarget(csr.firstEdge(vertex) + i) : targets[vertex][i];
+    }
+
+    public long getNeighborWeight(int vertex, int i) {
+        return frozen ? csr.getWeight(csr.firstEdge(vertex) + i) : weights[vertex][i];
+    }
+
+    public LongDirectedWeightedGraph getTranspose() {
+        CsrGraph csr = toCsr();
+        LongDirectedWeightedGraph g = new LongDirectedWeightedGraph(bothWays);
+        for (int i = 0; i < vertices; i++) {
+            g.addVertex(indexToVertex[i]);
+        }
+        for (int i = 0; i < vertices; i++) {
+            for (int e = csr.firstEdge(i); e < csr.endEdge(i); e++) {
+                g.addIndexedEdge(csr.getTarget(e), i, csr.getWeight(e));
+            }
+        }
+        return g;
+    }
+}
@@ -0,0 +1,84 @@
+// Open-addressing map from long keys to non-negative int values, with linear
+// probing. Each key sits next to its value in one long[] so a lookup touches
+// a single cache line; there are no per-entry objects and no boxing.
+final class LongIntHashMap {
+    private static final int MISSING = -1;
+
+    // entries[2 * slot] is the key, entries[2 * slot + 1] the value plus one,
+    // so a zero marks a free slot
+    private long[] entries;
+    private int mask;
+    private int size;
+
+    LongIntHashMap() {
+        this(16);
+    }
+
+    LongIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize * 2 - 1, 2)) << 1;
+        entries = new long[capacity * 2];
+        mask = capacity - 1;
+    }
+
+    int size() {
+        return size;
+    }
+
+    // Value stored for the key, or -1 if there is none
+    int get(long key) {
+        for (int slot = mix(key) & mask;; slot = (slot + 1) & mask) {
+            long stored = entries[2 * slot + 1];
+            if (stored == 0) {
+                return MISSING;
+            }
+            if (entries[2 * slot] == key) {
+                return (int) stored - 1;
+            }
+        }
+    }
+
+    // Stores the value if the key is absent and returns the value now mapped
+    int putIfAbsent(long key, int value) {
+        int slot = mix(key) & mask;
+        while (entries[2 * slot + 1] != 0) {
+            if (entries[2 * slot] == key) {
+                return (int) entries[2 * slot + 1] - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        insert(slot, key, value);
+        return value;
+    }
+
+    private void insert(int slot, long key, int value) {
+        entries[2 * slot] = key;
+        entries[2 * slot + 1] = value + 1L;
+        if (++size * 2 > mask + 1) {
+            rehash();
+        }
+    }
+
+    private void rehash() {
+        long[] old = entries;
+        entries = new long[old.length * 2];
+        mask = (mask << 1) | 1;
+        for (int i = 0; i < old.length; i += 2) {
+            if (old[i + 1] != 0) {
+                int slot = mix(old[i]) & mask;
+                while (entries[2 * slot + 1] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                entries[2 * slot] = old[i];
+                entries[2 * slot + 1] = old[i + 1];
+            }
+        }
+    }
+
+    // Spreads sequential ids over the table (the 64-bit finalizer of MurmurHash3)
+    private static int mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+}
@@ -0,0 +1,49 @@
+// CSR graph read in place from a memory-mapped snapshot file, see GraphSnapshot
+final class MappedCsrGraph extends CsrGraph {
+    private final MappedFile file;
+    private final int vertices;
+    private final int edges;
+    private final long offsetsPosition;
+    private final long targetsPosition;
+    private final long weightsPosition;
+
+    MappedCsrGraph(MappedFile file, int vertices, int edges, long offsetsPosition, long targetsPosition,
+            long weightsPosition) {
+        this.file = file;
+        this.vertices = vertices;
+        this.edges = edges;
+        this.offsetsPosition = offsetsPosition;
+        this.targetsPosition = targetsPosition;
+        this.weightsPosition = weightsPosition;
+    }
+
+    @Override
+    public int getVertexCount() {
+        return vertices;
+    }
+
+    @Override
+    public int getEdgeCount() {
+        return edges;
+    }
+
+    @Override
+    public int firstEdge(int vertex) {
+        return file.getInt(offsetsPosition + 4L * vertex);
+    }
+
+    @Override
+    public int endEdge(int vertex) {
+        return file.getInt(offsetsPosition + 4L * (vertex + 1));
+    }
+
+    @Override
+    public int getTarget(int edge) {
+        return file.getInt(targetsPosition + 4L * edge);
+    }
+
+    @Override
+    public long getWeight(int edge) {
+        return file.getLong(weightsPosition + 8L * edge);
+    }
+}
@@ -0,0 +1,60 @@
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Read-only memory mapping of a whole file, split into 1 GB segments so files
+// beyond the 2 GB limit of a single MappedByteBuffer can be addressed with a
+// long position. Values are little-endian; ints and longs must sit at
+// aligned positions so they never straddle two segments.
+final class MappedFile {
+    private static final int SEGMENT_SHIFT = 30;
+    private static final long SEGMENT_SIZE = 1L << SEGMENT_SHIFT;
+    private static final int SEGMENT_MASK = (int) SEGMENT_SIZE - 1;
+
+    private final MappedByteBuffer[] segments;
+    private final long size;
+
+    private MappedFile(MappedByteBuffer[] segments, long size) {
+        this.segments = segments;
+        this.size = size;
+    }
+
+    // The mapping stays valid after the channel is closed
+    static MappedFile map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            MappedByteBuffer[] segments = new MappedByteBuffer[(int) ((size + SEGMENT_SIZE - 1) >>> SEGMENT_SHIFT)];
+            for (int i = 0; i < segments.length; i++) {
+                long position = (long) i << SEGMENT_SHIFT;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(SEGMENT_SIZE, size - position));
+                segments[i].order(ByteOrder.LITTLE_ENDIAN);
+            }
+            return new MappedFile(segments, size);
+        }
+    }
+
+    long size() {
+        return size;
+    }
+
+    byte getByte(long position) {
+        return segments[(int) (position >>> SEGMENT_SHIFT)].get((int) position & SEGMENT_MASK);
+    }
+
+    int getInt(long position) {
+        return segments[(int) (position >>> SEGMENT_SHIFT)].getInt((int) position & SEGMENT_MASK);
+    }
+
+    long getLong(long position) {
+        return segments[(int) (position >>> SEGMENT_SHIFT)].getLong((int) position & SEGMENT_MASK);
+    }
+
+    void getBytes(long position, byte[] destination) {
+        for (int i = 0; i < destination.length; i++) {
+            destination[i] = getByte(position + i);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+import java.util.ArrayList;
+import java.util.List;
+
+// Edges of a minimum spanning forest (one tree per connected component) and
+// their total weight
+public class MinimumSpanningForest<T> {
+    private final AbstractDirectedWeightedGraph<T> graph;
+    private final int[] from;
+    private final int[] to;
+    private final long[] weight;
+    private final int edgeCount;
+    private final long totalWeight;
+
+    MinimumSpanningForest(AbstractDirectedWeightedGraph<T> graph, int[] from, int[] to, long[] weight, int edgeCount) {
+        this.graph = graph;
+        this.from = from;
+        this.to = to;
+        this.weight = weight;
+        this.edgeCount = edgeCount;
+        long total = 0;
+        for (int i = 0; i < edgeCount; i++) {
+            total += weight[i];
+        }
+        this.totalWeight = total;
+    }
+
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+
+    public long getTotalWeight() {
+        return totalWeight;
+    }
+
+    // Number of trees, i.e. connected components of the graph
+    public int getTreeCount() {
+        return graph.getVertexCount() - edgeCount;
+    }
+
+    public List<WeightedEdge<T>> getEdges() {
+        List<WeightedEdge<T>> edges = new ArrayList<>(edgeCount);
+        for (int i = 0; i < edgeCount; i++) {
+            edges.add(new WeightedEdge<>(graph.getVertex(from[i]), graph.getVertex(to[i]), weight[i]));
+        }
+        return edges;
+    }
+
+    public int getSourceByIndex(int i) {
+        return from[i];
+    }
+
+    public int getDestinationByIndex(int i) {
+        return to[i];
+    }
+
+    public long getWeightByIndex(int i) {
+        return weight[i];
+    }
+}
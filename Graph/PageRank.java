@@ -0,0 +1,69 @@
+import java.util.ArrayList;
+import java.util.List;
+
+// PageRank scores of every vertex; they sum to 1. Computed by
+// PageRankKernel, see there for the iteration and the handling of dangling
+// vertices.
+public class PageRank<T> {
+    private final AbstractDirectedWeightedGraph<T> graph;
+    private final double[] rank;
+    private final int iterations;
+    private final boolean converged;
+
+    PageRank(AbstractDirectedWeightedGraph<T> graph, CsrGraph g, CsrGraph reverse, double[] teleport,
+            double damping, double tolerance, int maxIterations, boolean weighted) {
+        if (!(damping >= 0 && damping < 1)) {
+            throw new IllegalArgumentException("Damping must be in [0, 1): " + damping);
+        }
+        if (!(tolerance >= 0)) {
+            throw new IllegalArgumentException("Tolerance must not be negative: " + tolerance);
+        }
+        if (maxIterations < 0) {
+            throw new IllegalArgumentException("Iteration limit must not be negative: " + maxIterations);
+        }
+        this.graph = graph;
+        PageRankKernel kernel = new PageRankKernel(g, reverse, damping, teleport, weighted);
+        this.rank = kernel.run(tolerance, maxIterations);
+        this.iterations = kernel.getIterationCount();
+        this.converged = kernel.hasConverged();
+    }
+
+    public double getRank(T vertex) {
+        int index = graph.getIndex(vertex);
+        if (index == -1) {
+            throw new IllegalArgumentException("Vertex not found: " + vertex);
+        }
+        return rank[index];
+    }
+
+    public double getRankByIndex(int vertex) {
+        return rank[vertex];
+    }
+
+    public double[] getRanks() {
+        return rank.clone();
+    }
+
+    // Vertices with the k highest ranks, highest first
+    public List<T> getTop(int k) {
+        List<Integer> order = new ArrayList<>(rank.length);
+        for (int v = 0; v < rank.length; v++) {
+            order.add(v);
+        }
+        order.sort((a, b) -> Double.compare(rank[b], rank[a]));
+        List<T> top = new ArrayList<>(Math.min(k, rank.length));
+        for (int i = 0; i < k && i < rank.length; i++) {
+            top.add(graph.getVertex(order.get(i)));
+        }
+        return top;
+    }
+
+    public int getIterationCount() {
+        return iterations;
+    }
+
+    // Whether the tolerance was reached within the iteration limit
+    public boolean hasConverged() {
+        return converged;
+    }
+}
@@ -0,0 +1,181 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Power iteration for PageRank as a pull-based sparse matrix-vector product
+// over the transpose CSR view: each vertex sums the contributions of its
+// in-neighbours, so every rank slot has exactly one writer and no atomics are
+// needed. The vertex range is cut into chunks holding about equal vertices
+// plus in-edges, several per worker of the common pool. All arrays and the
+// fork/join tasks are created once and the tasks reinitialized per phase, so
+// an iteration allocates nothing.
+//
+// Rank mass on dangling vertices (no out-edges, or no positive out-weight in
+// weighted mode) is spread by the teleport distribution, as is the 1 - damping
+// share, so the ranks always sum to 1.
+final class PageRankKernel {
+    private static final int CHUNKS_PER_THREAD = 4;
+    private static final int CONTRIBUTE = 0;
+    private static final int PULL = 1;
+
+    private final CsrGraph in;
+    private final int n;
+    private final double damping;
+    private final double[] teleport; // null for the uniform distribution
+    private final boolean weighted;
+    private final double[] outScale; // 1 / out-degree or 1 / out-weight, 0 if dangling
+    private final double[] contribution;
+    private double[] rank;
+    private double[] next;
+    private final int[] bounds;
+    private final double[] danglingPartial;
+    private final double[] deltaPartial;
+    private final ChunkTask[] chunks;
+    private final RecursiveAction root;
+    private int phase;
+    private double dangling;
+    private int iterations;
+    private boolean converged;
+
+    PageRankKernel(CsrGraph out, CsrGraph in, double damping, double[] teleport, boolean weighted) {
+        this.in = in;
+        this.n = out.getVertexCount();
+        this.damping = damping;
+        this.teleport = teleport;
+        this.weighted = weighted;
+        outScale = new double[n];
+        for (int u = 0; u < n; u++) {
+            double total = 0;
+            for (int e = out.firstEdge(u); e < out.endEdge(u); e++) {
+                long weight = out.getWeight(e);
+                if (weighted && weight < 0) {
+                    throw new IllegalArgumentException("Weighted PageRank does not support negative edge weights");
+                }
+                total += weighted ? weight : 1;
+            }
+            outScale[u] = total > 0 ? 1 / total : 0;
+        }
+        contribution = new double[n];
+        rank = new double[n];
+        next = new double[n];
+        for (int v = 0; v < n; v++) {
+            rank[v] = teleport(v);
+        }
+
+        int count = Math.max(1, Math.min(n, ForkJoinPool.commonPool().getParallelism() * CHUNKS_PER_THREAD));
+        bounds = new int[count + 1];
+        long total = (long) n + in.getEdgeCount();
+        int v = 0;
+        for (int c = 1; c < count; c++) {
+            long target = total * c / count;
+            while (v < n && (long) v + in.firstEdge(v) < target) {
+                v++;
+            }
+            bounds[c] = v;
+        }
+        bounds[count] = n;
+        danglingPartial = new double[count];
+        deltaPartial = new double[count];
+        chunks = new ChunkTask[count];
+        for (int c = 0; c < count; c++) {
+            chunks[c] = new ChunkTask(c);
+        }
+        root = new RecursiveAction() {
+            @Override
+            protected void compute() {
+                for (ChunkTask chunk : chunks) {
+                    chunk.reinitialize();
+                }
+                invokeAll(chunks);
+            }
+        };
+    }
+
+    private double teleport(int v) {
+        return teleport == null ? 1.0 / n : teleport[v];
+    }
+
+    // Iterates until the L1 change of the ranks drops below tolerance
+    double[] run(double tolerance, int maxIterations) {
+        while (iterations < maxIterations && !converged) {
+            runPhase(CONTRIBUTE);
+            dangling = 0;
+            for (double mass : danglingPartial) {
+                dangling += mass;
+            }
+            runPhase(PULL);
+            double delta = 0;
+            for (double change : deltaPartial) {
+                delta += change;
+            }
+            double[] swap = rank;
+            rank = next;
+            next = swap;
+            iterations++;
+            converged = delta < tolerance;
+        }
+        return rank;
+    }
+
+    int getIterationCount() {
+        return iterations;
+    }
+
+    boolean hasConverged() {
+        return converged;
+    }
+
+    private void runPhase(int phase) {
+        this.phase = phase;
+        if (chunks.length == 1) {
+            chunks[0].compute();
+            return;
+        }
+        root.reinitialize();
+        ForkJoinPool.commonPool().invoke(root);
+    }
+
+    private final class ChunkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int chunk;
+
+        ChunkTask(int chunk) {
+            this.chunk = chunk;
+        }
+
+        @Override
+        protected void compute() {
+            int start = bounds[chunk];
+            int end = bounds[chunk + 1];
+            if (phase == CONTRIBUTE) {
+                double mass = 0;
+                for (int u = start; u < end; u++) {
+                    contribution[u] = rank[u] * outScale[u];
+                    if (outScale[u] == 0) {
+                        mass += rank[u];
+                    }
+                }
+                danglingPartial[chunk] = mass;
+                return;
+            }
+            double delta = 0;
+            for (int v = start; v < end; v++) {
+                double sum = 0;
+                if (weighted) {
+                    for (int e = in.firstEdge(v); e < in.endEdge(v); e++) {
+                        sum += contribution[in.getTarget(e)] * in.getWeight(e);
+                    }
+                } else {
+                    for (int e = in.firstEdge(v); e < in.endEdge(v); e++) {
+                        sum += contribution[in.getTarget(e)];
+                    }
+                }
+                double t = teleport(v);
+                double value = (1 - damping) * t + damping * (sum + dangling * t);
+                delta += Math.abs(value - rank[v]);
+                next[v] = value;
+            }
+            deltaPartial[chunk] = delta;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+import java.util.Arrays;
+
+// Point-to-point shortest path engines that settle far fewer vertices than a
+// plain Dijkstra. Like DijkstraSearch.run they fill distance and parent for
+// the vertices settled from the source, plus every vertex on the path found,
+// and return the number of settled vertices.
+final class PointToPointSearch {
+    private PointToPointSearch() {
+    }
+
+    // Bidirectional Dijkstra: a forward search from the source and a backward
+    // search over the reversed graph from the target, always advancing the
+    // side with the smaller queue head. Both stop once the two heads together
+    // cannot beat the best source-target connection seen so far.
+    static int bidirectional(CsrGraph g, CsrGraph reverse, int source, int target, long[] distance, int[] parent) {
+        int n = g.getVertexCount();
+        Arrays.fill(distance, ShortestPathResult.UNREACHABLE);
+        Arrays.fill(parent, -1);
+        long[] backward = new long[n];
+        int[] next = new int[n]; // successor towards the target in the backward tree
+        Arrays.fill(backward, ShortestPathResult.UNREACHABLE);
+        Arrays.fill(next, -1);
+        IndexedDaryHeap forwardQueue = new IndexedDaryHeap(n);
+        IndexedDaryHeap backwardQueue = new IndexedDaryHeap(n);
+
+        distance[source] = 0;
+        backward[target] = 0;
+        forwardQueue.insertOrDecrease(source, 0);
+        backwardQueue.insertOrDecrease(target, 0);
+        long best = source == target ? 0 : ShortestPathResult.UNREACHABLE;
+        int meetFrom = -1; // best connection is the edge meetFrom -> meetTo
+        int meetTo = -1;
+        int settled = 0;
+
+        while (!forwardQueue.isEmpty() && !backwardQueue.isEmpty()) {
+            long forwardMin = forwardQueue.getKey(forwardQueue.get(0));
+            long backwardMin = backwardQueue.getKey(backwardQueue.get(0));
+            if (best != ShortestPathResult.UNREACHABLE && forwardMin + backwardMin >= best) {
+                break;
+            }
+            settled++;
+            if (forwardMin <= backwardMin) {
+                int u = forwardQueue.pollMin();
+                for (int e = g.firstEdge(u); e < g.endEdge(u); e++) {
+                    int v = g.getTarget(e);
+                    long candidate = distance[u] + checkedWeight(g, e);
+                    if (candidate < distance[v]) {
+                        distance[v] = candidate;
+                        parent[v] = u;
+                        forwardQueue.insertOrDecrease(v, candidate);
+                    }
+                    if (backward[v] != ShortestPathResult.UNREACHABLE && candidate + backward[v] < best) {
+                        best = candidate + backward[v];
+                        meetFrom = u;
+                        meetTo = v;
+                    }
+                }
+            } else {
+                int u = backwardQueue.pollMin();
+                for (int e = reverse.firstEdge(u); e < reverse.endEdge(u); e++) {
+                    int v = reverse.getTarget(e);
+                    long candidate = backward[u] + checkedWeight(reverse, e);
+                    if (candidate < backward[v]) {
+                        backward[v] = candidate;
+                        next[v] = u;
+                        backwardQueue.insertOrDecrease(v, candidate);
+                    }
+                    if (distance[v] != ShortestPathResult.UNREACHABLE && candidate + distance[v] < best) {
+                        best = candidate + distance[v];
+                        meetFrom = v;
+                        meetTo = u;
+                    }
+                }
+            }
+        }
+
+        // Path as source ... meetFrom, meetTo ... target, with its distances
+        // taken before the tentative forward entries are cleared
+        int[] path = new int[0];
+        int head = 0; // position of meetTo in the path
+        if (source == target) {
+            path = new int[] { source };
+            head = 1;
+        } else if (meetFrom != -1) {
+            for (int v = meetFrom; v != -1; v = parent[v]) {
+                head++;
+            }
+            int length = head;
+            for (int v = meetTo; v != -1; v = next[v]) {
+                length++;
+            }
+            path = new int[length];
+            int i = head;
+            for (int v = meetFrom; v != -1; v = parent[v]) {
+                path[--i] = v;
+            }
+            i = head;
+            for (int v = meetTo; v != -1; v = next[v]) {
+                path[i++] = v;
+            }
+        }
+        long[] pathDistance = new long[path.length];
+        for (int i = 0; i < path.length; i++) {
+            pathDistance[i] = i < head ? distance[path[i]] : best - backward[path[i]];
+        }
+        resetQueued(forwardQueue, distance, parent);
+        for (int i = 0; i < path.length; i++) {
+            distance[path[i]] = pathDistance[i];
+            parent[path[i]] = i == 0 ? -1 : path[i - 1];
+        }
+        return settled;
+    }
+
+    // ALT: A* where the priority of v is its distance from the source plus
+    // the landmark lower bound on its distance to the target. The bound is
+    // consistent, so a vertex's distance is final once it is taken off the queue.
+    static int alt(CsrGraph g, Landmarks landmarks, int source, int target, long[] distance, int[] parent) {
+        int n = g.getVertexCount();
+        Arrays.fill(distance, ShortestPathResult.UNREACHABLE);
+        Arrays.fill(parent, -1);
+        long[] bound = new long[n];
+        Arrays.fill(bound, -1);
+        IndexedDaryHeap queue = new IndexedDaryHeap(n);
+
+        bound[source] = landmarks.lowerBound(source, target);
+        distance[source] = 0;
+        if (bound[source] != ShortestPathResult.UNREACHABLE) {
+            queue.insertOrDecrease(source, bound[source]);
+        }
+        int settled = 0;
+        while (!queue.isEmpty()) {
+            int u = queue.pollMin();
+            settled++;
+            if (u == target) {
+                break;
+            }
+            for (int e = g.firstEdge(u); e < g.endEdge(u); e++) {
+                int v = g.getTarget(e);
+                long candidate = distance[u] + checkedWeight(g, e);
+                if (candidate < distance[v]) {
+                    if (bound[v] == -1) {
+                        bound[v] = landmarks.lowerBound(v, target);
+                    }
+                    if (bound[v] == ShortestPathResult.UNREACHABLE) {
+                        continue; // v cannot reach the target
+                    }
+                    distance[v] = candidate;
+                    parent[v] = u;
+                    queue.insertOrDecrease(v, candidate + bound[v]);
+                }
+            }
+        }
+        resetQueued(queue, distance, parent);
+        return settled;
+    }
+
+    private static long checkedWeight(CsrGraph g, int edge) {
+        long weight = g.getWeight(edge);
+        if (weight < 0) {
+            throw new IllegalArgumentException("Dijkstra does not support negative edge weights");
+        }
+        return weight;
+    }
+
+    private static void resetQueued(IndexedDaryHeap queue, long[] distance, int[] parent) {
+        for (int i = 0; i < queue.size(); i++) {
+            int v = queue.get(i);
+            distance[v] = ShortestPathResult.UNREACHABLE;
+            parent[v] = -1;
+        }
+    }
+}
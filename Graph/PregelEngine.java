@@ -0,0 +1,393 @@
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongBinaryOperator;
+
+// Bulk-synchronous vertex-centric engine in the style of Pregel. The vertex
+// index range is split into contiguous partitions of about equal vertices
+// plus out-edges, each with its own inbox. In every superstep each partition
+// runs the vertex program on its vertices that are active or have mail;
+// messages to its own vertices are combined straight into its next inbox,
+// messages to other partitions are buffered per destination and merged by
+// the receiver once every partition has computed. Then the partitions count
+// what is still active, and the run stops once nothing is, or after
+// maxSupersteps.
+//
+// By default the partitions are threads of this JVM that hand their buffers
+// over in the heap between two barriers. Under PROCESSES execution each
+// partition is a separate JVM on this machine and the buffers travel over
+// loopback sockets; see PregelProcesses.
+//
+// Vertex values and messages are longs, and messages to one vertex are
+// folded by the combiner, so an inbox is one long per vertex.
+public final class PregelEngine<T> {
+    public enum Execution {
+        THREADS, PROCESSES
+    }
+
+    public interface VertexProgram {
+        // Value of the vertex before superstep 0
+        long initialValue(int vertex);
+
+        // Runs for every vertex in superstep 0 and afterwards for every
+        // vertex that has not voted to halt or has received messages, which
+        // arrive folded into one by the combiner
+        void compute(Context context, int vertex, long value, boolean hasMessage, long message);
+    }
+
+    // What a vertex program may do while computing one vertex
+    public interface Context {
+        int getSuperstep();
+
+        CsrGraph getGraph();
+
+        // New value of the vertex being computed
+        void setValue(long value);
+
+        // Delivered in the next superstep
+        void sendMessage(int target, long message);
+
+        // Skips the vertex in later supersteps until a message arrives
+        void voteToHalt();
+    }
+
+    // Serializable, so the built-in programs can ship to worker processes
+    private static final LongBinaryOperator MIN = (LongBinaryOperator & Serializable) Math::min;
+
+    private final AbstractDirectedWeightedGraph<T> graph;
+    private final CsrGraph g;
+    private final Execution execution;
+    private final int[] bounds; // partition p owns [bounds[p], bounds[p + 1])
+    private int supersteps;
+    private boolean converged;
+
+    PregelEngine(AbstractDirectedWeightedGraph<T> graph, CsrGraph g, int partitions, Execution execution) {
+        if (partitions < 1) {
+            throw new IllegalArgumentException("Partition count must be positive: " + partitions);
+        }
+        this.graph = graph;
+        this.g = g;
+        this.execution = execution;
+        int n = g.getVertexCount();
+        partitions = Math.max(1, Math.min(partitions, n));
+        bounds = new int[partitions + 1];
+        long total = (long) n + g.getEdgeCount();
+        int v = 0;
+        for (int p = 1; p < partitions; p++) {
+            long target = total * p / partitions;
+            while (v < n && (long) v + g.firstEdge(v) < target) {
+                v++;
+            }
+            bounds[p] = v;
+        }
+        bounds[partitions] = n;
+    }
+
+    public int getPartitionCount() {
+        return bounds.length - 1;
+    }
+
+    public Execution getExecution() {
+        return execution;
+    }
+
+    public int getPartitionOf(int vertex) {
+        return PregelPartition.partitionOf(bounds, vertex);
+    }
+
+    // Supersteps taken by the last run
+    public int getSuperstepCount() {
+        return supersteps;
+    }
+
+    // Whether the last run ended because every vertex halted with no
+    // messages in flight, rather than at maxSupersteps
+    public boolean hasConverged() {
+        return converged;
+    }
+
+    // Runs the program to convergence or for at most maxSupersteps and
+    // returns the final value of every vertex. Under PROCESSES execution the
+    // program and combiner must be Serializable, and getGraph() in a worker
+    // holds only the rows of that worker's partition.
+    public long[] run(VertexProgram program, LongBinaryOperator combiner, int maxSupersteps) {
+        long[] values = new long[g.getVertexCount()];
+        supersteps = 0;
+        converged = false;
+        if (maxSupersteps <= 0) {
+            return values;
+        }
+        if (execution == Execution.PROCESSES) {
+            PregelProcesses processes = new PregelProcesses();
+            processes.run(g, bounds, program, combiner, maxSupersteps, values);
+            supersteps = processes.getSuperstepCount();
+            converged = processes.hasConverged();
+            return values;
+        }
+
+        int partitions = getPartitionCount();
+        long[] pending = new long[partitions];
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        // Even phases end the compute step, odd phases the exchange step
+        Phaser phaser = new Phaser(partitions) {
+            @Override
+            protected boolean onAdvance(int phase, int parties) {
+                if ((phase & 1) == 0) {
+                    return false;
+                }
+                supersteps++;
+                long active = 0;
+                for (long count : pending) {
+                    active += count;
+                }
+                converged = active == 0;
+                return converged || supersteps >= maxSupersteps;
+            }
+        };
+        List<PregelPartition> parts = new ArrayList<>(partitions);
+        for (int p = 0; p < partitions; p++) {
+            parts.add(new PregelPartition(p, bounds, g, program, combiner));
+        }
+        Thread[] threads = new Thread[partitions];
+        for (int p = 0; p < partitions; p++) {
+            threads[p] = new Thread(new Worker(parts.get(p), parts, pending, phaser, failure),
+                    "pregel-partition-" + p);
+            threads[p].setDaemon(true);
+            threads[p].start();
+        }
+        boolean interrupted = false;
+        for (Thread thread : threads) {
+            while (true) {
+                try {
+                    thread.join();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                    phaser.forceTermination();
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while running supersteps");
+        }
+        Throwable error = failure.get();
+        if (error instanceof RuntimeException) {
+            throw (RuntimeException) error;
+        }
+        if (error instanceof Error) {
+            throw (Error) error;
+        }
+        for (PregelPartition part : parts) {
+            System.arraycopy(part.values, 0, values, part.lo, part.values.length);
+        }
+        return values;
+    }
+
+    // Levels and parents of the vertices reached from the source. A value
+    // packs the level into the high half and the parent into the low half,
+    // so the min combiner keeps the lowest level, then the lowest parent.
+    public BfsResult<T> bfs(T source) {
+        int start = graph.requireIndex(source);
+        long[] values = run(new BfsProgram(start), MIN, Integer.MAX_VALUE);
+        int[] level = new int[values.length];
+        int[] parent = new int[values.length];
+        for (int v = 0; v < values.length; v++) {
+            level[v] = values[v] == BfsProgram.UNVISITED ? -1 : (int) (values[v] >>> 32);
+            parent[v] = values[v] == BfsProgram.UNVISITED ? -1 : (int) values[v];
+        }
+        return new BfsResult<>(graph, start, level, parent);
+    }
+
+    // Distances from the source by Bellman-Ford style relaxation, one edge
+    // hop per superstep, so negative weights are allowed. A run still
+    // improving after V supersteps has met a negative cycle.
+    public ShortestPathResult<T> shortestPaths(T source) {
+        int start = graph.requireIndex(source);
+        long[] distance = run(new ShortestPathProgram(start), MIN, g.getVertexCount() + 1);
+        if (!converged) {
+            throw new IllegalStateException("Graph contains a negative cycle reachable from the source");
+        }
+        int[] parent = new int[distance.length];
+        int reached = tightTree(start, distance, parent);
+        return new ShortestPathResult<>(graph, start, distance, parent, reached);
+    }
+
+    // Parents along edges that are tight for the final distances, found by a
+    // BFS from the source so zero-weight cycles cannot close the tree
+    private int tightTree(int source, long[] distance, int[] parent) {
+        Arrays.fill(parent, -1);
+        boolean[] seen = new boolean[distance.length];
+        IntRingBuffer queue = new IntRingBuffer();
+        seen[source] = true;
+        queue.add(source);
+        int reached = 0;
+        while (!queue.isEmpty()) {
+            int u = queue.poll();
+            reached++;
+            for (int e = g.firstEdge(u); e < g.endEdge(u); e++) {
+                int v = g.getTarget(e);
+                if (!seen[v] && distance[u] + g.getWeight(e) == distance[v]) {
+                    seen[v] = true;
+                    parent[v] = u;
+                    queue.add(v);
+                }
+            }
+        }
+        return reached;
+    }
+
+    // Weakly connected components by min-label propagation: the label of a
+    // vertex is the smallest index in its component
+    public int[] connectedComponents() {
+        PregelEngine<T> engine = graph.isBothWays() ? this
+                : new PregelEngine<>(graph, g.symmetrize(), getPartitionCount(), execution);
+        long[] labels = engine.run(new ComponentProgram(), MIN, Integer.MAX_VALUE);
+        supersteps = engine.supersteps;
+        converged = engine.converged;
+        int[] component = new int[labels.length];
+        for (int v = 0; v < labels.length; v++) {
+            component[v] = (int) labels[v];
+        }
+        return component;
+    }
+
+    private static final class BfsProgram implements VertexProgram, Serializable {
+        private static final long serialVersionUID = 1L;
+        static final long UNVISITED = Long.MAX_VALUE;
+
+        private final int start;
+
+        BfsProgram(int start) {
+            this.start = start;
+        }
+
+        @Override
+        public long initialValue(int vertex) {
+            return vertex == start ? 0xFFFFFFFFL : UNVISITED;
+        }
+
+        @Override
+        public void compute(Context context, int vertex, long value, boolean hasMessage, long message) {
+            if (vertex != start || context.getSuperstep() > 0) {
+                if (!hasMessage || value != UNVISITED) {
+                    context.voteToHalt();
+                    return;
+                }
+                value = message;
+                context.setValue(value);
+            }
+            long next = ((value >>> 32) + 1) << 32 | vertex;
+            CsrGraph csr = context.getGraph();
+            for (int e = csr.firstEdge(vertex); e < csr.endEdge(vertex); e++) {
+                context.sendMessage(csr.getTarget(e), next);
+            }
+            context.voteToHalt();
+        }
+    }
+
+    private static final class ShortestPathProgram implements VertexProgram, Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final int start;
+
+        ShortestPathProgram(int start) {
+            this.start = start;
+        }
+
+        @Override
+        public long initialValue(int vertex) {
+            return vertex == start ? 0 : ShortestPathResult.UNREACHABLE;
+        }
+
+        @Override
+        public void compute(Context context, int vertex, long value, boolean hasMessage, long message) {
+            if (vertex != start || context.getSuperstep() > 0) {
+                if (!hasMessage || message >= value) {
+                    context.voteToHalt();
+                    return;
+                }
+                value = message;
+                context.setValue(value);
+            }
+            CsrGraph csr = context.getGraph();
+            for (int e = csr.firstEdge(vertex); e < csr.endEdge(vertex); e++) {
+                context.sendMessage(csr.getTarget(e), value + csr.getWeight(e));
+            }
+            context.voteToHalt();
+        }
+    }
+
+    private static final class ComponentProgram implements VertexProgram, Serializable {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public long initialValue(int vertex) {
+            return vertex;
+        }
+
+        @Override
+        public void compute(Context context, int vertex, long value, boolean hasMessage, long message) {
+            if (context.getSuperstep() > 0) {
+                if (!hasMessage || message >= value) {
+                    context.voteToHalt();
+                    return;
+                }
+                value = message;
+                context.setValue(value);
+            }
+            CsrGraph csr = context.getGraph();
+            for (int e = csr.firstEdge(vertex); e < csr.endEdge(vertex); e++) {
+                if (csr.getTarget(e) > value) {
+                    context.sendMessage(csr.getTarget(e), value);
+                }
+            }
+            context.voteToHalt();
+        }
+    }
+
+    // Runs one partition on its own thread; the barriers separate its
+    // compute step from taking in what the other partitions sent it
+    private static final class Worker implements Runnable {
+        private final PregelPartition partition;
+        private final List<PregelPartition> peers;
+        private final long[] pending;
+        private final Phaser phaser;
+        private final AtomicReference<Throwable> failure;
+
+        Worker(PregelPartition partition, List<PregelPartition> peers, long[] pending, Phaser phaser,
+                AtomicReference<Throwable> failure) {
+            this.partition = partition;
+            this.peers = peers;
+            this.pending = pending;
+            this.phaser = phaser;
+            this.failure = failure;
+        }
+
+        @Override
+        public void run() {
+            try {
+                partition.start();
+                while (true) {
+                    partition.compute();
+                    if (phaser.arriveAndAwaitAdvance() < 0) {
+                        return;
+                    }
+                    for (PregelPartition peer : peers) {
+                        peer.drainTo(partition);
+                    }
+                    pending[partition.self] = partition.advance();
+                    if (phaser.arriveAndAwaitAdvance() < 0) {
+                        return;
+                    }
+                }
+            } catch (Throwable t) {
+                failure.compareAndSet(null, t);
+                phaser.forceTermination();
+            }
+        }
+    }
+}
@@ -0,0 +1,200 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.function.LongBinaryOperator;
+
+// One partition of a Pregel run: the values and inboxes of its vertex range,
+// its outgoing buffers to every other partition, and the compute step of a
+// superstep. Between compute steps the engine moves the buffered messages to
+// their partitions, in the heap when partitions are threads and over sockets
+// when they are processes.
+final class PregelPartition implements PregelEngine.Context {
+    final int self;
+    final int lo;
+    final int hi;
+    private final int[] bounds;
+    private final CsrGraph g;
+    private final PregelEngine.VertexProgram program;
+    private final LongBinaryOperator combiner;
+    final long[] values; // by vertex - lo
+    private final boolean[] active;
+    private long[] inbox;
+    private boolean[] hasMail;
+    private long[] nextInbox;
+    private boolean[] nextHasMail;
+    private final int[][] outTargets;
+    private final long[][] outMessages;
+    private final int[] outSizes;
+    private int superstep;
+    private int current;
+    private boolean halted;
+
+    PregelPartition(int self, int[] bounds, CsrGraph g, PregelEngine.VertexProgram program,
+            LongBinaryOperator combiner) {
+        this.self = self;
+        this.lo = bounds[self];
+        this.hi = bounds[self + 1];
+        this.bounds = bounds;
+        this.g = g;
+        this.program = program;
+        this.combiner = combiner;
+        int size = hi - lo;
+        values = new long[size];
+        active = new boolean[size];
+        inbox = new long[size];
+        hasMail = new boolean[size];
+        nextInbox = new long[size];
+        nextHasMail = new boolean[size];
+        int partitions = bounds.length - 1;
+        outTargets = new int[partitions][];
+        outMessages = new long[partitions][];
+        outSizes = new int[partitions];
+        for (int p = 0; p < partitions; p++) {
+            outTargets[p] = new int[p == self ? 0 : 16];
+            outMessages[p] = new long[p == self ? 0 : 16];
+        }
+    }
+
+    // Partition p owns [bounds[p], bounds[p + 1])
+    static int partitionOf(int[] bounds, int vertex) {
+        int p = Arrays.binarySearch(bounds, vertex);
+        if (p < 0) {
+            return -p - 2;
+        }
+        // Empty partitions share a bound; the vertex belongs to the last one
+        while (bounds[p + 1] == vertex) {
+            p++;
+        }
+        return p;
+    }
+
+    // Initial values, with every vertex active for superstep 0
+    void start() {
+        for (int v = lo; v < hi; v++) {
+            values[v - lo] = program.initialValue(v);
+            active[v - lo] = true;
+        }
+    }
+
+    // Runs the program on every vertex that is active or has mail
+    void compute() {
+        for (int v = lo; v < hi; v++) {
+            int i = v - lo;
+            if (active[i] || hasMail[i]) {
+                current = v;
+                halted = false;
+                program.compute(this, v, values[i], hasMail[i], inbox[i]);
+                active[i] = !halted;
+                hasMail[i] = false;
+            }
+        }
+    }
+
+    // Makes the delivered messages the inbox of the next superstep and
+    // returns how many vertices will compute in it
+    long advance() {
+        long[] swapInbox = inbox;
+        inbox = nextInbox;
+        nextInbox = swapInbox;
+        boolean[] swapMail = hasMail;
+        hasMail = nextHasMail;
+        nextHasMail = swapMail;
+        long count = 0;
+        for (int i = 0; i < active.length; i++) {
+            if (active[i] || hasMail[i]) {
+                count++;
+            }
+        }
+        superstep++;
+        return count;
+    }
+
+    @Override
+    public int getSuperstep() {
+        return superstep;
+    }
+
+    @Override
+    public CsrGraph getGraph() {
+        return g;
+    }
+
+    @Override
+    public void setValue(long value) {
+        values[current - lo] = value;
+    }
+
+    @Override
+    public void voteToHalt() {
+        halted = true;
+    }
+
+    @Override
+    public void sendMessage(int target, long message) {
+        if (target >= lo && target < hi) {
+            deliver(target, message);
+            return;
+        }
+        if (target < 0 || target >= bounds[bounds.length - 1]) {
+            throw new IndexOutOfBoundsException("Vertex index " + target + " out of range");
+        }
+        int p = partitionOf(bounds, target);
+        int size = outSizes[p];
+        if (size == outTargets[p].length) {
+            outTargets[p] = Arrays.copyOf(outTargets[p], size * 2);
+            outMessages[p] = Arrays.copyOf(outMessages[p], size * 2);
+        }
+        outTargets[p][size] = target;
+        outMessages[p][size] = message;
+        outSizes[p] = size + 1;
+    }
+
+    private void deliver(int target, long message) {
+        int i = target - lo;
+        if (nextHasMail[i]) {
+            nextInbox[i] = combiner.applyAsLong(nextInbox[i], message);
+        } else {
+            nextInbox[i] = message;
+            nextHasMail[i] = true;
+        }
+    }
+
+    // Hands the messages buffered for the receiver over to it; runs on the
+    // receiver's thread between the compute and exchange barriers
+    void drainTo(PregelPartition receiver) {
+        int p = receiver.self;
+        int[] targets = outTargets[p];
+        long[] messages = outMessages[p];
+        for (int k = 0; k < outSizes[p]; k++) {
+            receiver.deliver(targets[k], messages[k]);
+        }
+        outSizes[p] = 0;
+    }
+
+    // Streams the messages buffered for partition p as a count followed by
+    // (target, message) pairs
+    void writeTo(int p, DataOutputStream out) throws IOException {
+        int[] targets = outTargets[p];
+        long[] messages = outMessages[p];
+        out.writeInt(outSizes[p]);
+        for (int k = 0; k < outSizes[p]; k++) {
+            out.writeInt(targets[k]);
+            out.writeLong(messages[k]);
+        }
+        outSizes[p] = 0;
+    }
+
+    // Reads what writeTo sent from another partition into the next inbox
+    void readFrom(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        for (int k = 0; k < count; k++) {
+            int target = in.readInt();
+            long message = in.readLong();
+            if (target < lo || target >= hi) {
+                throw new IOException("Message for vertex " + target + " sent to partition " + self);
+            }
+            deliver(target, message);
+        }
+    }
+}
@@ -0,0 +1,510 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.file.Paths;
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongBinaryOperator;
+
+// Runs the partitions of a Pregel job in separate JVMs on this machine, so the
+// values, inboxes and message buffers of a large run are spread over several
+// heaps. The calling JVM coordinates: it starts one worker process per
+// partition on its own class path, accepts their connections on a loopback
+// port and ships each worker the CSR rows of its partition with the
+// serialized vertex program and combiner. The workers connect to each other
+// directly and in every superstep stream each peer the messages buffered for
+// it; the coordinator only sums the pending counts, broadcasts whether to go
+// on, and collects the final values.
+//
+// Workers prove they were started by this run with a random token written to
+// their standard input, so other local processes cannot join on the port.
+final class PregelProcesses {
+    private static final int STARTUP_TIMEOUT_MILLIS = 60_000;
+    private static final int POLL_MILLIS = 200;
+    private static final long FAILED = -1;
+
+    private int supersteps;
+    private boolean converged;
+
+    int getSuperstepCount() {
+        return supersteps;
+    }
+
+    boolean hasConverged() {
+        return converged;
+    }
+
+    // Coordinator side: fills values with the result of the run
+    void run(CsrGraph g, int[] bounds, PregelEngine.VertexProgram program, LongBinaryOperator combiner,
+            int maxSupersteps, long[] values) {
+        if (!(program instanceof Serializable) || !(combiner instanceof Serializable)) {
+            throw new IllegalArgumentException("Process execution needs a Serializable vertex program and combiner");
+        }
+        byte[] code = serialize(program, combiner);
+        int partitions = bounds.length - 1;
+        long token = new SecureRandom().nextLong();
+        Process[] workers = new Process[partitions];
+        Socket[] sockets = new Socket[partitions];
+        DataInputStream[] in = new DataInputStream[partitions];
+        DataOutputStream[] out = new DataOutputStream[partitions];
+        boolean finished = false;
+        try (ServerSocket server = new ServerSocket(0, partitions, InetAddress.getLoopbackAddress())) {
+            String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+            for (int p = 0; p < partitions; p++) {
+                workers[p] = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                        PregelProcesses.class.getName(), Integer.toString(server.getLocalPort()), Integer.toString(p))
+                        .redirectOutput(ProcessBuilder.Redirect.INHERIT)
+                        .redirectError(ProcessBuilder.Redirect.INHERIT)
+                        .start();
+                try (DataOutputStream stdin = new DataOutputStream(workers[p].getOutputStream())) {
+                    stdin.writeLong(token);
+                }
+            }
+            accept(server, token, workers, sockets, in, out);
+
+            for (int p = 0; p < partitions; p++) {
+                sendSetup(out[p], g, bounds, p, code);
+            }
+            int[] ports = new int[partitions];
+            for (int p = 0; p < partitions; p++) {
+                ports[p] = (int) readStatus(in[p]);
+            }
+            for (int p = 0; p < partitions; p++) {
+                for (int port : ports) {
+                    out[p].writeInt(port);
+                }
+                out[p].flush();
+            }
+
+            supersteps = 0;
+            converged = false;
+            while (true) {
+                long active = 0;
+                Throwable failure = null;
+                for (int p = 0; p < partitions; p++) {
+                    long count = in[p].readLong();
+                    if (count == FAILED) {
+                        Throwable error = readFailure(in[p]);
+                        // A failing worker makes its peers fail on the closed sockets;
+                        // report the cause rather than those
+                        if (failure == null || failure instanceof IOException && !(error instanceof IOException)) {
+                            failure = error;
+                        }
+                    } else {
+                        active += count;
+                    }
+                }
+                if (failure != null) {
+                    throw propagate(failure);
+                }
+                supersteps++;
+                converged = active == 0;
+                boolean more = !converged && supersteps < maxSupersteps;
+                for (int p = 0; p < partitions; p++) {
+                    out[p].writeBoolean(more);
+                    out[p].flush();
+                }
+                if (!more) {
+                    break;
+                }
+            }
+            for (int p = 0; p < partitions; p++) {
+                for (int v = bounds[p]; v < bounds[p + 1]; v++) {
+                    values[v] = in[p].readLong();
+                }
+            }
+            finished = true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            for (Socket socket : sockets) {
+                closeQuietly(socket);
+            }
+            for (Process worker : workers) {
+                if (worker != null) {
+                    stop(worker, finished);
+                }
+            }
+        }
+    }
+
+    // Takes one connection per partition, polling so a worker that dies on
+    // startup fails the run instead of the accept timing out
+    private static void accept(ServerSocket server, long token, Process[] workers, Socket[] sockets,
+            DataInputStream[] in, DataOutputStream[] out) throws IOException {
+        server.setSoTimeout(POLL_MILLIS);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(STARTUP_TIMEOUT_MILLIS);
+        int connected = 0;
+        while (connected < workers.length) {
+            Socket socket;
+            try {
+                socket = server.accept();
+            } catch (SocketTimeoutException e) {
+                for (int p = 0; p < workers.length; p++) {
+                    if (sockets[p] == null && !workers[p].isAlive()) {
+                        throw new IOException("Pregel worker " + p + " exited with status " + workers[p].exitValue());
+                    }
+                }
+                if (System.nanoTime() > deadline) {
+                    throw new IOException("Pregel workers did not connect within " + STARTUP_TIMEOUT_MILLIS + " ms");
+                }
+                continue;
+            }
+            socket.setTcpNoDelay(true);
+            DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            socket.setSoTimeout(STARTUP_TIMEOUT_MILLIS);
+            long claimed;
+            int p;
+            try {
+                claimed = input.readLong();
+                p = input.readInt();
+            } catch (IOException e) {
+                closeQuietly(socket);
+                continue;
+            }
+            socket.setSoTimeout(0);
+            if (claimed != token || p < 0 || p >= workers.length || sockets[p] != null) {
+                closeQuietly(socket);
+                continue;
+            }
+            sockets[p] = socket;
+            in[p] = input;
+            out[p] = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            connected++;
+        }
+    }
+
+    // A port or a pending count from a worker, or its failure
+    private static long readStatus(DataInputStream in) throws IOException {
+        long status = in.readLong();
+        if (status == FAILED) {
+            throw propagate(readFailure(in));
+        }
+        return status;
+    }
+
+    // The worker's failure as thrown by the run: program exceptions as they
+    // were, transport failures as UncheckedIOException
+    private static RuntimeException propagate(Throwable failure) {
+        if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+        if (failure instanceof RuntimeException) {
+            return (RuntimeException) failure;
+        }
+        return new UncheckedIOException(new IOException("Pregel worker failed", failure));
+    }
+
+    // Partition layout, the rows of partition p, and the program
+    private static void sendSetup(DataOutputStream out, CsrGraph g, int[] bounds, int p, byte[] code)
+            throws IOException {
+        out.writeInt(g.getVertexCount());
+        out.writeInt(bounds.length);
+        for (int bound : bounds) {
+            out.writeInt(bound);
+        }
+        int edges = 0;
+        for (int u = bounds[p]; u < bounds[p + 1]; u++) {
+            edges += g.getOutDegree(u);
+        }
+        out.writeInt(edges);
+        for (int u = bounds[p]; u < bounds[p + 1]; u++) {
+            out.writeInt(g.getOutDegree(u));
+            for (int e = g.firstEdge(u); e < g.endEdge(u); e++) {
+                out.writeInt(g.getTarget(e));
+                out.writeLong(g.getWeight(e));
+            }
+        }
+        out.writeInt(code.length);
+        out.write(code);
+        out.flush();
+    }
+
+    private static void stop(Process worker, boolean finished) {
+        if (finished) {
+            try {
+                if (worker.waitFor(STARTUP_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        worker.destroyForcibly();
+    }
+
+    // Worker side: java -cp <class path> PregelProcesses <port> <partition>,
+    // with the token on standard input
+    public static void main(String[] args) throws IOException {
+        long token = new DataInputStream(System.in).readLong();
+        int self = Integer.parseInt(args[1]);
+        InetAddress loopback = InetAddress.getLoopbackAddress();
+        try (Socket control = new Socket(loopback, Integer.parseInt(args[0]))) {
+            control.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(control.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(control.getOutputStream()));
+            out.writeLong(token);
+            out.writeInt(self);
+            out.flush();
+            try {
+                work(self, token, in, out);
+            } catch (Throwable t) {
+                out.writeLong(FAILED);
+                writeFailure(out, t);
+                out.flush();
+                System.exit(1);
+            }
+        }
+    }
+
+    private static void work(int self, long token, DataInputStream in, DataOutputStream out)
+            throws IOException, ClassNotFoundException {
+        int n = in.readInt();
+        int[] bounds = new int[in.readInt()];
+        for (int p = 0; p < bounds.length; p++) {
+            bounds[p] = in.readInt();
+        }
+        int lo = bounds[self];
+        int hi = bounds[self + 1];
+        int[] offsets = new int[hi - lo + 1];
+        int edges = in.readInt();
+        int[] targets = new int[edges];
+        long[] weights = new long[edges];
+        for (int u = lo; u < hi; u++) {
+            int end = offsets[u - lo] + in.readInt();
+            for (int e = offsets[u - lo]; e < end; e++) {
+                targets[e] = in.readInt();
+                weights[e] = in.readLong();
+            }
+            offsets[u - lo + 1] = end;
+        }
+        byte[] code = new byte[in.readInt()];
+        in.readFully(code);
+        PregelEngine.VertexProgram program;
+        LongBinaryOperator combiner;
+        try (ObjectInputStream objects = new ObjectInputStream(new ByteArrayInputStream(code))) {
+            program = (PregelEngine.VertexProgram) objects.readObject();
+            combiner = (LongBinaryOperator) objects.readObject();
+        }
+        PregelPartition partition = new PregelPartition(self, bounds, new RowSlice(n, lo, offsets, targets, weights),
+                program, combiner);
+
+        // Mesh: connect to every lower partition, accept every higher one
+        int partitions = bounds.length - 1;
+        Socket[] peers = new Socket[partitions];
+        DataInputStream[] peerIn = new DataInputStream[partitions];
+        DataOutputStream[] peerOut = new DataOutputStream[partitions];
+        try (ServerSocket server = new ServerSocket(0, partitions, InetAddress.getLoopbackAddress())) {
+            out.writeLong(server.getLocalPort());
+            out.flush();
+            int[] ports = new int[partitions];
+            for (int p = 0; p < partitions; p++) {
+                ports[p] = in.readInt();
+            }
+            for (int p = 0; p < self; p++) {
+                Socket socket = new Socket(server.getInetAddress(), ports[p]);
+                DataOutputStream output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+                output.writeLong(token);
+                output.writeInt(self);
+                output.flush();
+                peers[p] = socket;
+                peerOut[p] = output;
+            }
+            server.setSoTimeout(STARTUP_TIMEOUT_MILLIS);
+            for (int accepted = self + 1; accepted < partitions; ) {
+                Socket socket = server.accept();
+                DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                long claimed = input.readLong();
+                int p = input.readInt();
+                if (claimed != token || p <= self || p >= partitions || peers[p] != null) {
+                    closeQuietly(socket);
+                    continue;
+                }
+                peers[p] = socket;
+                peerIn[p] = input;
+                accepted++;
+            }
+        }
+        for (int p = 0; p < partitions; p++) {
+            if (p != self) {
+                peers[p].setTcpNoDelay(true);
+                if (peerIn[p] == null) {
+                    peerIn[p] = new DataInputStream(new BufferedInputStream(peers[p].getInputStream()));
+                }
+                if (peerOut[p] == null) {
+                    peerOut[p] = new DataOutputStream(new BufferedOutputStream(peers[p].getOutputStream()));
+                }
+            }
+        }
+
+        partition.start();
+        do {
+            partition.compute();
+            exchange(partition, peerIn, peerOut);
+            out.writeLong(partition.advance());
+            out.flush();
+        } while (in.readBoolean());
+        for (long value : partition.values) {
+            out.writeLong(value);
+        }
+        out.flush();
+        for (Socket peer : peers) {
+            closeQuietly(peer);
+        }
+    }
+
+    // A sender thread streams to the peers in partition order while this
+    // thread reads from them in the same order. A sender can only wait on a
+    // reader that waits on a lower-numbered sender, so the waits cannot form
+    // a cycle however full the socket buffers get.
+    private static void exchange(PregelPartition partition, DataInputStream[] peerIn, DataOutputStream[] peerOut)
+            throws IOException {
+        AtomicReference<IOException> failure = new AtomicReference<>();
+        Thread sender = new Thread(() -> {
+            try {
+                for (int p = 0; p < peerOut.length; p++) {
+                    if (p != partition.self) {
+                        partition.writeTo(p, peerOut[p]);
+                        peerOut[p].flush();
+                    }
+                }
+            } catch (IOException e) {
+                failure.set(e);
+            }
+        }, "pregel-sender-" + partition.self);
+        sender.setDaemon(true);
+        sender.start();
+        for (int p = 0; p < peerIn.length; p++) {
+            if (p != partition.self) {
+                partition.readFrom(peerIn[p]);
+            }
+        }
+        boolean interrupted = false;
+        while (true) {
+            try {
+                sender.join();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+    }
+
+    private static byte[] serialize(Object... objects) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream stream = new ObjectOutputStream(bytes)) {
+            for (Object object : objects) {
+                stream.writeObject(object);
+            }
+        } catch (NotSerializableException e) {
+            throw new IllegalArgumentException("Vertex program or combiner holds a non-serializable "
+                    + e.getMessage(), e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    // The worker's exception, or a stand-in carrying its text if it does not
+    // serialize
+    private static void writeFailure(DataOutputStream out, Throwable t) throws IOException {
+        byte[] bytes;
+        try {
+            bytes = serialize(t);
+        } catch (RuntimeException e) {
+            bytes = serialize(new IllegalStateException(t.toString()));
+        }
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static Throwable readFailure(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        try (ObjectInputStream objects = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return (Throwable) objects.readObject();
+        } catch (ClassNotFoundException | ClassCastException e) {
+            return new IOException("Unreadable failure from a Pregel worker", e);
+        }
+    }
+
+    private static void closeQuietly(Socket socket) {
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Nothing left to release
+            }
+        }
+    }
+
+    // The CSR view inside a worker: every vertex index is valid, but only the
+    // rows of the worker's own partition hold edges
+    private static final class RowSlice extends CsrGraph {
+        private final int vertices;
+        private final int lo;
+        private final int[] offsets;
+        private final int[] targets;
+        private final long[] weights;
+
+        RowSlice(int vertices, int lo, int[] offsets, int[] targets, long[] weights) {
+            this.vertices = vertices;
+            this.lo = lo;
+            this.offsets = offsets;
+            this.targets = targets;
+            this.weights = weights;
+        }
+
+        @Override
+        public int getVertexCount() {
+            return vertices;
+        }
+
+        @Override
+        public int getEdgeCount() {
+            return targets.length;
+        }
+
+        @Override
+        public int firstEdge(int vertex) {
+            int i = vertex - lo;
+            return i >= 0 && i < offsets.length - 1 ? offsets[i] : 0;
+        }
+
+        @Override
+        public int endEdge(int vertex) {
+            int i = vertex - lo;
+            return i >= 0 && i < offsets.length - 1 ? offsets[i + 1] : 0;
+        }
+
+        @Override
+        public int getTarget(int edge) {
+            return targets[edge];
+        }
+
+        @Override
+        public long getWeight(int edge) {
+            return weights[edge];
+        }
+    }
+}
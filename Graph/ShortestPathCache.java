@@ -0,0 +1,180 @@
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+
+// Bounded cache of full shortest-path trees keyed by source vertex index.
+// Every entry is tagged with the graph's modification count; the first lookup
+// after a mutation drops the whole cache. Each entry holds O(V) distances and
+// parents, so the capacity is a number of trees, not of bytes.
+public final class ShortestPathCache<T> {
+    public enum Eviction {
+        // Drops the tree used least recently
+        LRU,
+        // Drops the tree used least often, the least recent one among ties
+        LFU
+    }
+
+    private final int capacity;
+    private final Eviction eviction;
+    private final Map<Integer, ShortestPathResult<T>> trees = new HashMap<>();
+    // LRU: insertion-ordered set that is moved to the back on every use
+    private final LinkedHashMap<Integer, Boolean> recency = new LinkedHashMap<>(16, 0.75f, true);
+    // LFU: use count per source, and the sources bucketed by use count
+    private final Map<Integer, Integer> useCount = new HashMap<>();
+    private final Map<Integer, LinkedHashSet<Integer>> byUseCount = new HashMap<>();
+    private int minUseCount;
+    private int modCount;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    ShortestPathCache(int capacity, Eviction eviction, int modCount) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Cache capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.eviction = eviction;
+        this.modCount = modCount;
+    }
+
+    // The cached tree for the source, or null on a miss
+    synchronized ShortestPathResult<T> get(int source, int graphModCount) {
+        validate(graphModCount);
+        ShortestPathResult<T> tree = trees.get(source);
+        if (tree == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        touch(source);
+        return tree;
+    }
+
+    synchronized void put(int source, ShortestPathResult<T> tree, int graphModCount) {
+        validate(graphModCount);
+        if (trees.containsKey(source)) {
+            return;
+        }
+        if (trees.size() == capacity) {
+            evict();
+        }
+        trees.put(source, tree);
+        if (eviction == Eviction.LRU) {
+            recency.put(source, Boolean.TRUE);
+        } else {
+            useCount.put(source, 1);
+            byUseCount.computeIfAbsent(1, k -> new LinkedHashSet<>()).add(source);
+            minUseCount = 1;
+        }
+    }
+
+    private void validate(int graphModCount) {
+        if (graphModCount != modCount) {
+            if (!trees.isEmpty()) {
+                invalidations++;
+            }
+            clearEntries();
+            modCount = graphModCount;
+        }
+    }
+
+    private void touch(int source) {
+        if (eviction == Eviction.LRU) {
+            recency.get(source);
+            return;
+        }
+        int count = useCount.get(source);
+        LinkedHashSet<Integer> bucket = byUseCount.get(count);
+        bucket.remove(source);
+        if (bucket.isEmpty()) {
+            byUseCount.remove(count);
+            if (minUseCount == count) {
+                minUseCount = count + 1;
+            }
+        }
+        useCount.put(source, count + 1);
+        byUseCount.computeIfAbsent(count + 1, k -> new LinkedHashSet<>()).add(source);
+    }
+
+    private void evict() {
+        int victim;
+        if (eviction == Eviction.LRU) {
+            Iterator<Integer> oldest = recency.keySet().iterator();
+            victim = oldest.next();
+            oldest.remove();
+        } else {
+            LinkedHashSet<Integer> bucket = byUseCount.get(minUseCount);
+            Iterator<Integer> oldest = bucket.iterator();
+            victim = oldest.next();
+            oldest.remove();
+            if (bucket.isEmpty()) {
+                byUseCount.remove(minUseCount);
+            }
+            useCount.remove(victim);
+        }
+        trees.remove(victim);
+        evictions++;
+    }
+
+    private void clearEntries() {
+        trees.clear();
+        recency.clear();
+        useCount.clear();
+        byUseCount.clear();
+        minUseCount = 0;
+    }
+
+    public synchronized void clear() {
+        clearEntries();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public Eviction getEviction() {
+        return eviction;
+    }
+
+    public synchronized int size() {
+        return trees.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    // Times a mutation of the graph emptied a non-empty cache
+    public synchronized long getInvalidations() {
+        return invalidations;
+    }
+
+    public synchronized double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    public synchronized void resetStatistics() {
+        hits = 0;
+        misses = 0;
+        evictions = 0;
+        invalidations = 0;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "ShortestPathCache[" + eviction + ", " + trees.size() + "/" + capacity + ", hits=" + hits
+                + ", misses=" + misses + ", evictions=" + evictions + ", invalidations=" + invalidations + "]";
+    }
+}
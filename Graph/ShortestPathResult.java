@@ -0,0 +1,86 @@
+import java.util.ArrayList;
+import java.util.List;
+
+// Shortest-path tree produced by a single-source search. Only vertices the
+// search settled carry a distance; after an early exit at a target, every
+// vertex that was still queued is reported as unreachable.
+public class ShortestPathResult<T> {
+    public static final long UNREACHABLE = Long.MAX_VALUE;
+
+    private final AbstractDirectedWeightedGraph<T> graph;
+    private final int source;
+    private final long[] distance;
+    private final int[] parent;
+    private final int settled;
+
+    ShortestPathResult(AbstractDirectedWeightedGraph<T> graph, int source, long[] distance, int[] parent, int settled) {
+        this.graph = graph;
+        this.source = source;
+        this.distance = distance;
+        this.parent = parent;
+        this.settled = settled;
+    }
+
+    public T getSource() {
+        return graph.getVertex(source);
+    }
+
+    // Number of vertices taken off the queue, a measure of the work done
+    public int getSettledCount() {
+        return settled;
+    }
+
+    public boolean hasPathTo(T vertex) {
+        return hasPathByIndex(indexOf(vertex));
+    }
+
+    public boolean hasPathByIndex(int vertex) {
+        return distance[vertex] != UNREACHABLE;
+    }
+
+    public long getDistance(T vertex) {
+        return getDistanceByIndex(indexOf(vertex));
+    }
+
+    public long getDistanceByIndex(int vertex) {
+        return distance[vertex];
+    }
+
+    // Predecessor index on the shortest path, -1 for the source and unreached vertices
+    public int getParentByIndex(int vertex) {
+        return parent[vertex];
+    }
+
+    public List<T> getPath(T target) {
+        int[] path = getPathByIndex(indexOf(target));
+        List<T> result = new ArrayList<>(path.length);
+        for (int v : path) {
+            result.add(graph.getVertex(v));
+        }
+        return result;
+    }
+
+    // Vertex indices from the source to the target, empty if it was not reached
+    public int[] getPathByIndex(int target) {
+        if (!hasPathByIndex(target)) {
+            return new int[0];
+        }
+        int length = 0;
+        for (int v = target; v != -1; v = parent[v]) {
+            length++;
+        }
+        int[] path = new int[length];
+        for (int v = target; v != -1; v = parent[v]) {
+            path[--length] = v;
+        }
+        return path;
+    }
+
+    private int indexOf(T vertex) {
+        int index = graph.getIndex(vertex);
+        if (index == -1) {
+            throw new IllegalArgumentException("Vertex not found: " + vertex);
+        }
+        return index;
+    }
+}
@@ -0,0 +1,224 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Minimum spanning forest algorithms over a symmetric CSR graph (every
+// undirected edge stored in both directions). Each one fills the chosen
+// edges into the from/to/weight arrays and returns how many it chose.
+final class SpanningForests {
+    private static final int PARALLEL_THRESHOLD = 4096;
+
+    private SpanningForests() {
+    }
+
+    // Heap-based Prim, restarted from every vertex not yet in the forest
+    static int prim(CsrGraph g, int[] from, int[] to, long[] weight) {
+        int n = g.getVertexCount();
+        int[] parent = new int[n];
+        long[] key = new long[n];
+        boolean[] inTree = new boolean[n];
+        IndexedDaryHeap heap = new IndexedDaryHeap(n);
+        int count = 0;
+
+        for (int root = 0; root < n; root++) {
+            if (inTree[root]) {
+                continue;
+            }
+            parent[root] = -1;
+            heap.insertOrDecrease(root, 0);
+            while (!heap.isEmpty()) {
+                int u = heap.pollMin();
+                inTree[u] = true;
+                if (parent[u] != -1) {
+                    from[count] = parent[u];
+                    to[count] = u;
+                    weight[count++] = key[u];
+                }
+                for (int e = g.firstEdge(u); e < g.endEdge(u); e++) {
+                    int v = g.getTarget(e);
+                    long w = g.getWeight(e);
+                    if (!inTree[v] && (!heap.contains(v) || w < key[v])) {
+                        key[v] = w;
+                        parent[v] = u;
+                        heap.insertOrDecrease(v, w);
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    // Kruskal: edges in increasing weight order, joined through a union-find
+    static int kruskal(CsrGraph g, int[] from, int[] to, long[] weight) {
+        int n = g.getVertexCount();
+        int[] sources = new int[g.getEdgeCount() / 2 + 1];
+        int[] edgeIds = new int[sources.length];
+        int m = 0;
+        for (int u = 0; u < n; u++) {
+            for (int e = g.firstEdge(u); e < g.endEdge(u); e++) {
+                // Each undirected edge is stored twice; keep the u < v copy
+                if (u < g.getTarget(e)) {
+                    if (m == edgeIds.length) {
+                        sources = Arrays.copyOf(sources, m * 2);
+                        edgeIds = Arrays.copyOf(edgeIds, m * 2);
+                    }
+                    sources[m] = u;
+                    edgeIds[m++] = e;
+                }
+            }
+        }
+
+        int[] order = new int[m];
+        for (int i = 0; i < m; i++) {
+            order[i] = i;
+        }
+        sortByEdgeWeight(g, order, edgeIds);
+
+        UnionFind sets = new UnionFind(n);
+        int count = 0;
+        for (int i = 0; i < m && count < n - 1; i++) {
+            int u = sources[order[i]];
+            int e = edgeIds[order[i]];
+            int v = g.getTarget(e);
+            if (sets.union(u, v)) {
+                from[count] = u;
+                to[count] = v;
+                weight[count++] = g.getWeight(e);
+            }
+        }
+        return count;
+    }
+
+    // Boruvka: every round each component picks its cheapest outgoing edge.
+    // The per-vertex scan over all edges runs on the fork/join common pool.
+    static int boruvka(CsrGraph g, int[] from, int[] to, long[] weight) {
+        int n = g.getVertexCount();
+        UnionFind sets = new UnionFind(n);
+        int[] component = new int[n];
+        int[] bestEdge = new int[n];
+        int[] cheapest = new int[n];
+        int count = 0;
+
+        while (true) {
+            for (int v = 0; v < n; v++) {
+                component[v] = sets.find(v);
+            }
+            ForkJoinPool.commonPool().invoke(new CheapestEdgeTask(g, component, bestEdge, 0, n));
+
+            Arrays.fill(cheapest, -1);
+            for (int v = 0; v < n; v++) {
+                if (bestEdge[v] == -1) {
+                    continue;
+                }
+                int c = component[v];
+                if (cheapest[c] == -1 || lighter(g, v, bestEdge[v], cheapest[c], bestEdge[cheapest[c]])) {
+                    cheapest[c] = v;
+                }
+            }
+
+            int added = 0;
+            for (int c = 0; c < n; c++) {
+                int u = cheapest[c];
+                if (u == -1) {
+                    continue;
+                }
+                int e = bestEdge[u];
+                int v = g.getTarget(e);
+                if (sets.union(u, v)) {
+                    from[count] = u;
+                    to[count] = v;
+                    weight[count++] = g.getWeight(e);
+                    added++;
+                }
+            }
+            if (added == 0) {
+                return count;
+            }
+        }
+    }
+
+    // Strict total order on undirected edges: weight, then endpoints. Without
+    // the tie-break, Boruvka could pick equal-weight edges that form a cycle.
+    private static boolean lighter(CsrGraph g, int u1, int e1, int u2, int e2) {
+        long w1 = g.getWeight(e1);
+        long w2 = g.getWeight(e2);
+        if (w1 != w2) {
+            return w1 < w2;
+        }
+        int v1 = g.getTarget(e1);
+        int v2 = g.getTarget(e2);
+        int low1 = Math.min(u1, v1);
+        int low2 = Math.min(u2, v2);
+        if (low1 != low2) {
+            return low1 < low2;
+        }
+        return Math.max(u1, v1) < Math.max(u2, v2);
+    }
+
+    private static class CheapestEdgeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final CsrGraph g;
+        private final int[] component;
+        private final int[] bestEdge;
+        private final int start;
+        private final int end;
+
+        CheapestEdgeTask(CsrGraph g, int[] component, int[] bestEdge, int start, int end) {
+            this.g = g;
+            this.component = component;
+            this.bestEdge = bestEdge;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start > PARALLEL_THRESHOLD) {
+                int mid = (start + end) >>> 1;
+                invokeAll(new CheapestEdgeTask(g, component, bestEdge, start, mid),
+                        new CheapestEdgeTask(g, component, bestEdge, mid, end));
+                return;
+            }
+            for (int u = start; u < end; u++) {
+                int best = -1;
+                for (int e = g.firstEdge(u); e < g.endEdge(u); e++) {
+                    if (component[g.getTarget(e)] != component[u]) {
+                        if (best == -1 || lighter(g, u, e, u, best)) {
+                            best = e;
+                        }
+                    }
+                }
+                bestEdge[u] = best;
+            }
+        }
+    }
+
+    // Merge sort of positions by the weight of the edge they refer to
+    private static void sortByEdgeWeight(CsrGraph g, int[] order, int[] edgeIds) {
+        int[] buffer = new int[order.length];
+        for (int width = 1; width < order.length; width *= 2) {
+            for (int low = 0; low < order.length - width; low += 2 * width) {
+                int mid = low + width;
+                int high = Math.min(low + 2 * width, order.length);
+                int i = low;
+                int j = mid;
+                int k = low;
+                while (i < mid && j < high) {
+                    if (g.getWeight(edgeIds[order[j]]) < g.getWeight(edgeIds[order[i]])) {
+                        buffer[k++] = order[j++];
+                    } else {
+                        buffer[k++] = order[i++];
+                    }
+                }
+                while (i < mid) {
+                    buffer[k++] = order[i++];
+                }
+                while (j < high) {
+                    buffer[k++] = order[j++];
+                }
+                System.arraycopy(buffer, low, order, low, high - low);
+            }
+        }
+    }
+}
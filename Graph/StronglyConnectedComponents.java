@@ -0,0 +1,175 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Strongly connected components found by an iterative Tarjan search. Component
+// ids are numbered in topological order of the condensation: every edge
+// between two components goes from a lower id to a higher one.
+public class StronglyConnectedComponents<T> {
+    private final AbstractDirectedWeightedGraph<T> graph;
+    private final int[] component;
+    private final int count;
+    private final int[] sizes;
+    private final CsrGraph condensation;
+
+    StronglyConnectedComponents(AbstractDirectedWeightedGraph<T> graph, CsrGraph g) {
+        this.graph = graph;
+        int n = g.getVertexCount();
+        this.component = new int[n];
+        this.count = tarjan(g, component);
+        this.sizes = new int[count];
+        for (int v = 0; v < n; v++) {
+            sizes[component[v]]++;
+        }
+        this.condensation = condense(g);
+    }
+
+    public int getComponentCount() {
+        return count;
+    }
+
+    public int getComponent(T vertex) {
+        int index = graph.getIndex(vertex);
+        if (index == -1) {
+            throw new IllegalArgumentException("Vertex not found: " + vertex);
+        }
+        return component[index];
+    }
+
+    public int getComponentByIndex(int vertex) {
+        return component[vertex];
+    }
+
+    public int getComponentSize(int component) {
+        return sizes[component];
+    }
+
+    public List<T> getMembers(int component) {
+        List<T> members = new ArrayList<>(sizes[component]);
+        for (int v = 0; v < this.component.length; v++) {
+            if (this.component[v] == component) {
+                members.add(graph.getVertex(v));
+            }
+        }
+        return members;
+    }
+
+    // The DAG with one vertex per component. Parallel edges between two
+    // components are merged, keeping the lightest weight.
+    public CsrGraph getCondensation() {
+        return condensation;
+    }
+
+    private static int tarjan(CsrGraph g, int[] component) {
+        int n = g.getVertexCount();
+        int[] index = new int[n];
+        int[] low = new int[n];
+        boolean[] onStack = new boolean[n];
+        int[] stack = new int[n];
+        int[] callStack = new int[n];
+        int[] nextEdge = new int[n];
+        Arrays.fill(index, -1);
+        int stackSize = 0;
+        int counter = 0;
+        int found = 0;
+
+        for (int root = 0; root < n; root++) {
+            if (index[root] != -1) {
+                continue;
+            }
+            int depth = 0;
+            callStack[depth++] = root;
+            index[root] = low[root] = counter++;
+            nextEdge[root] = g.firstEdge(root);
+            stack[stackSize++] = root;
+            onStack[root] = true;
+
+            while (depth > 0) {
+                int v = callStack[depth - 1];
+                if (nextEdge[v] < g.endEdge(v)) {
+                    int w = g.getTarget(nextEdge[v]++);
+                    if (index[w] == -1) {
+                        index[w] = low[w] = counter++;
+                        nextEdge[w] = g.firstEdge(w);
+                        stack[stackSize++] = w;
+                        onStack[w] = true;
+                        callStack[depth++] = w;
+                    } else if (onStack[w]) {
+                        low[v] = Math.min(low[v], index[w]);
+                    }
+                    continue;
+                }
+
+                // All edges of v are done: return to the caller
+                depth--;
+                if (depth > 0) {
+                    int caller = callStack[depth - 1];
+                    low[caller] = Math.min(low[caller], low[v]);
+                }
+                if (low[v] == index[v]) {
+                    int w;
+                    do {
+                        w = stack[--stackSize];
+                        onStack[w] = false;
+                        component[w] = found;
+                    } while (w != v);
+                    found++;
+                }
+            }
+        }
+
+        // Tarjan emits sink components first; flip to topological order
+        for (int v = 0; v < n; v++) {
+            component[v] = found - 1 - component[v];
+        }
+        return found;
+    }
+
+    private CsrGraph condense(CsrGraph g) {
+        int n = g.getVertexCount();
+        int[] byComponent = new int[n];
+        int[] start = new int[count + 1];
+        for (int v = 0; v < n; v++) {
+            start[component[v] + 1]++;
+        }
+        for (int c = 0; c < count; c++) {
+            start[c + 1] += start[c];
+        }
+        int[] fill = Arrays.copyOf(start, count);
+        for (int v = 0; v < n; v++) {
+            byComponent[fill[component[v]]++] = v;
+        }
+
+        int[] offsets = new int[count + 1];
+        int[] targets = new int[16];
+        long[] weights = new long[16];
+        int[] slot = new int[count]; // edge slot of target component for the current source, or -1
+        Arrays.fill(slot, -1);
+        int edges = 0;
+        for (int c = 0; c < count; c++) {
+            offsets[c] = edges;
+            for (int i = start[c]; i < start[c + 1]; i++) {
+                int v = byComponent[i];
+                for (int e = g.firstEdge(v); e < g.endEdge(v); e++) {
+                    int d = component[g.getTarget(e)];
+                    if (d == c) {
+                        continue;
+                    }
+                    if (slot[d] >= offsets[c]) {
+                        weights[slot[d]] = Math.min(weights[slot[d]], g.getWeight(e));
+                        continue;
+                    }
+                    if (edges == targets.length) {
+                        targets = Arrays.copyOf(targets, edges * 2);
+                        weights = Arrays.copyOf(weights, edges * 2);
+                    }
+                    slot[d] = edges;
+                    targets[edges] = d;
+                    weights[edges++] = g.getWeight(e);
+                }
+            }
+        }
+        offsets[count] = edges;
+        return new ArrayCsrGraph(offsets, Arrays.copyOf(targets, edges), Arrays.copyOf(weights, edges));
+    }
+}
@@ -0,0 +1,225 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+// Topological order computed in waves by Kahn's algorithm. Wave 0 holds the
+// vertices without predecessors and wave i + 1 those whose last predecessor
+// is in wave i, so the vertices of one wave can all run concurrently once the
+// previous waves are done. Wide waves are split across the fork/join common
+// pool, with the indegrees kept in an AtomicIntegerArray; each wave is sorted
+// by vertex index so the result does not depend on the thread schedule.
+//
+// If the graph has a cycle the order stops at the vertices on or behind a
+// cycle, and getCycle() returns one such cycle.
+public class TopologicalOrder<T> {
+    private static final int PARALLEL_CHUNK = 1024;
+
+    private final AbstractDirectedWeightedGraph<T> graph;
+    private final int[] order;
+    private final int size;
+    private final int[] waveStarts;
+    private final int waveCount;
+    private final int[] waveNumber;
+    private final int[] cycle;
+
+    TopologicalOrder(AbstractDirectedWeightedGraph<T> graph, CsrGraph g) {
+        this.graph = graph;
+        int n = g.getVertexCount();
+        int[] counts = new int[n];
+        for (int e = 0; e < g.getEdgeCount(); e++) {
+            counts[g.getTarget(e)]++;
+        }
+        AtomicIntegerArray indegree = new AtomicIntegerArray(counts);
+        AtomicInteger cursor = new AtomicInteger();
+        order = new int[n];
+        waveNumber = new int[n];
+        Arrays.fill(waveNumber, -1);
+        int[] starts = new int[16];
+        int end = 0;
+        for (int v = 0; v < n; v++) {
+            if (counts[v] == 0) {
+                order[end++] = v;
+            }
+        }
+
+        int waves = 0;
+        for (int start = 0; start < end; waves++) {
+            if (waves + 1 == starts.length) {
+                starts = Arrays.copyOf(starts, starts.length * 2);
+            }
+            starts[waves] = start;
+            for (int i = start; i < end; i++) {
+                waveNumber[order[i]] = waves;
+            }
+            // The next wave is appended to order right behind this one
+            cursor.set(end);
+            if (end - start > PARALLEL_CHUNK) {
+                ForkJoinPool.commonPool().invoke(new WaveTask(g, indegree, order, cursor, start, end));
+            } else {
+                new WaveTask(g, indegree, order, cursor, start, end).compute();
+            }
+            start = end;
+            end = cursor.get();
+            Arrays.sort(order, start, end);
+        }
+        starts[waves] = end;
+        this.size = end;
+        this.waveStarts = starts;
+        this.waveCount = waves;
+        this.cycle = size == n ? new int[0] : findCycle(graph.toReverseCsr());
+    }
+
+    // Every vertex left out of the order has a predecessor that was left out
+    // too, so walking predecessors from any of them must revisit a vertex
+    private int[] findCycle(CsrGraph reverse) {
+        int n = order.length;
+        int[] position = new int[n];
+        Arrays.fill(position, -1);
+        int[] walk = new int[n];
+        int steps = 0;
+        int v = 0;
+        while (waveNumber[v] != -1) {
+            v++;
+        }
+        while (position[v] == -1) {
+            position[v] = steps;
+            walk[steps++] = v;
+            int e = reverse.firstEdge(v);
+            while (waveNumber[reverse.getTarget(e)] != -1) {
+                e++;
+            }
+            v = reverse.getTarget(e);
+        }
+        // The walk runs against the edges; the cycle is its tail, reversed
+        int[] result = new int[steps - position[v]];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = walk[steps - 1 - i];
+        }
+        return result;
+    }
+
+    public boolean isAcyclic() {
+        return cycle.length == 0;
+    }
+
+    // All vertices in topological order, or those before any cycle
+    public List<T> getOrder() {
+        return toVertices(order, 0, size);
+    }
+
+    public int[] getOrderByIndex() {
+        return Arrays.copyOf(order, size);
+    }
+
+    public int getWaveCount() {
+        return waveCount;
+    }
+
+    // Vertices that can run once waves 0 .. wave - 1 are done
+    public List<T> getWave(int wave) {
+        checkWave(wave);
+        return toVertices(order, waveStarts[wave], waveStarts[wave + 1]);
+    }
+
+    public int[] getWaveByIndex(int wave) {
+        checkWave(wave);
+        return Arrays.copyOfRange(order, waveStarts[wave], waveStarts[wave + 1]);
+    }
+
+    // Wave of the vertex, -1 if it lies on or behind a cycle
+    public int getWaveNumber(T vertex) {
+        int index = graph.getIndex(vertex);
+        if (index == -1) {
+            throw new IllegalArgumentException("Vertex not found: " + vertex);
+        }
+        return waveNumber[index];
+    }
+
+    public int getWaveNumberByIndex(int vertex) {
+        return waveNumber[vertex];
+    }
+
+    // Vertices of one cycle, each with an edge to the next and the last back
+    // to the first; empty if the graph is acyclic
+    public List<T> getCycle() {
+        return toVertices(cycle, 0, cycle.length);
+    }
+
+    public int[] getCycleByIndex() {
+        return cycle.clone();
+    }
+
+    private void checkWave(int wave) {
+        if (wave < 0 || wave >= waveCount) {
+            throw new IndexOutOfBoundsException("Wave " + wave + " out of range");
+        }
+    }
+
+    private List<T> toVertices(int[] indices, int from, int to) {
+        List<T> vertices = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            vertices.add(graph.getVertex(indices[i]));
+        }
+        return vertices;
+    }
+
+    // Releases the successors of order[start, end); a successor whose
+    // indegree drops to zero is appended behind the cursor
+    private static class WaveTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final CsrGraph g;
+        private final AtomicIntegerArray indegree;
+        private final int[] order;
+        private final AtomicInteger cursor;
+        private final int start;
+        private final int end;
+
+        WaveTask(CsrGraph g, AtomicIntegerArray indegree, int[] order, AtomicInteger cursor, int start, int end) {
+            this.g = g;
+            this.indegree = indegree;
+            this.order = order;
+            this.cursor = cursor;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start > PARALLEL_CHUNK) {
+                int mid = (start + end) >>> 1;
+                invokeAll(new WaveTask(g, indegree, order, cursor, start, mid),
+                        new WaveTask(g, indegree, order, cursor, mid, end));
+                return;
+            }
+            // Released vertices are staged locally and published in blocks,
+            // so the shared cursor is bumped once per block, not per vertex
+            int[] buffer = new int[256];
+            int buffered = 0;
+            for (int i = start; i < end; i++) {
+                int u = order[i];
+                for (int e = g.firstEdge(u); e < g.endEdge(u); e++) {
+                    int v = g.getTarget(e);
+                    if (indegree.decrementAndGet(v) == 0) {
+                        if (buffered == buffer.length) {
+                            flush(buffer, buffered);
+                            buffered = 0;
+                        }
+                        buffer[buffered++] = v;
+                    }
+                }
+            }
+            flush(buffer, buffered);
+        }
+
+        private void flush(int[] buffer, int count) {
+            if (count > 0) {
+                System.arraycopy(buffer, 0, order, cursor.getAndAdd(count), count);
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+// Converts vertex values to and from bytes for the snapshot dictionary
+public interface VertexCodec<T> {
+    byte[] encode(T vertex);
+
+    T decode(byte[] bytes);
+
+    VertexCodec<Long> LONGS = new VertexCodec<Long>() {
+        @Override
+        public byte[] encode(Long vertex) {
+            return ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN).putLong(vertex).array();
+        }
+
+        @Override
+        public Long decode(byte[] bytes) {
+            return ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).getLong();
+        }
+    };
+
+    VertexCodec<Integer> INTEGERS = new VertexCodec<Integer>() {
+        @Override
+        public byte[] encode(Integer vertex) {
+            return ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(vertex).array();
+        }
+
+        @Override
+        public Integer decode(byte[] bytes) {
+            return ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).getInt();
+        }
+    };
+
+    VertexCodec<String> STRINGS = new VertexCodec<String>() {
+        @Override
+        public byte[] encode(String vertex) {
+            return vertex.getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public String decode(byte[] bytes) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    };
+}
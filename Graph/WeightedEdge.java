@@ -0,0 +1,30 @@
+// A single weighted edge between two vertex values, as handed out by the
+// graph's result objects
+public class WeightedEdge<T> {
+    private final T source;
+    private final T destination;
+    private final long weight;
+
+    public WeightedEdge(T source, T destination, long weight) {
+        this.source = source;
+        this.destination = destination;
+        this.weight = weight;
+    }
+
+    public T getSource() {
+        return source;
+    }
+
+    public T getDestination() {
+        return destination;
+    }
+
+    public long getWeight() {
+        return weight;
+    }
+
+    @Override
+    public String toString() {
+        return source + " -> " + destination + " (weight: " + weight + ")";
+    }
+}